@@ -0,0 +1,271 @@
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * BackportBranchPlanner calculates the target branches of backports for many pull requests at once.
+ * The titles of the GitHub projects (ProjectV2) associated with the pull requests are fetched with
+ * aliased GraphQL queries in batches, and then the versions in the titles are converted to the
+ * branches in memory. The result is written out to standard output as lines of the pull request
+ * number and the space-separated target branches separated by a tab. A pull request whose projects
+ * couldn't be retrieved (e.g., a nonexistent pull request) is reported and skipped without
+ * affecting the other pull requests in the same batch.
+ *
+ * <p>The versions are converted to the branches as follows:
+ *
+ * <ul>
+ *   <li>3.7.1 -> 3.7 (release branch)
+ *   <li>3.8.0 -> 3 (support branch)
+ *   <li>4.0.0 -> the default branch
+ * </ul>
+ *
+ * <p>Note that it is needed that java 11 to execute this script since it is executed as a
+ * Single-File Source-code program.
+ */
+@SuppressWarnings("DefaultPackage")
+public class BackportBranchPlanner {
+
+  private static final String DEBUG = System.getenv("DEBUG");
+  private static final int BATCH_SIZE = 50;
+
+  private final GitHubContext ghContext;
+  private final String defaultBranch;
+  private final Pattern projectVersionPattern;
+
+  public static void main(String... args) throws Exception {
+    if (args.length < 5) {
+      System.err.printf(
+          "Usage:%n    java %s.java <owner> <repository> <projectBaseName> <defaultBranch>"
+              + " <pullRequestNumber>...%n%nExample:%n    java %s.java scalar-labs scalardb"
+              + " ScalarDB master 1234 1235%n",
+          BackportBranchPlanner.class.getSimpleName(), BackportBranchPlanner.class.getSimpleName());
+      System.exit(1);
+    }
+
+    String owner = args[0];
+    String repository = args[1];
+    String projectBaseName = args[2];
+    String defaultBranch = args[3];
+    List<String> prNumbers = Arrays.asList(args).subList(4, args.length);
+
+    BackportBranchPlanner main =
+        new BackportBranchPlanner(
+            new GitHubContext(owner, repository), projectBaseName, defaultBranch);
+    main.output(main.plan(prNumbers));
+  }
+
+  public BackportBranchPlanner(
+      GitHubContext ghContext, String projectBaseName, String defaultBranch) {
+    this.ghContext = ghContext;
+    this.defaultBranch = defaultBranch;
+    this.projectVersionPattern =
+        Pattern.compile("^" + Pattern.quote(projectBaseName) + " ([0-9]+\\.[0-9]+\\.[0-9]+).*$");
+  }
+
+  public Map<String, Set<String>> plan(List<String> prNumbers) throws Exception {
+    Map<String, Set<String>> branchesMap = new LinkedHashMap<>();
+    for (String prNumber : prNumbers) {
+      if (!Pattern.matches("^[0-9]+$", prNumber))
+        throw new IllegalArgumentException("Invalid pull request number: " + prNumber);
+      branchesMap.put(prNumber, new LinkedHashSet<>());
+    }
+
+    List<String> uniquePrNumbers = new ArrayList<>(branchesMap.keySet());
+    for (int i = 0; i < uniquePrNumbers.size(); i += BATCH_SIZE) {
+      List<String> batch =
+          uniquePrNumbers.subList(i, Math.min(i + BATCH_SIZE, uniquePrNumbers.size()));
+      Map<String, List<String>> projectTitles = ghContext.getProjectTitles(batch);
+
+      for (String prNumber : batch) {
+        List<String> titles = projectTitles.get(prNumber);
+        if (titles == null) {
+          System.err.printf(
+              "WARN: Couldn't get the projects of the pull request #%s. Skipping it.%n", prNumber);
+          branchesMap.remove(prNumber);
+          continue;
+        }
+        for (String title : titles) {
+          String version = extractVersion(title);
+          if (DEBUG != null)
+            System.err.printf("PR:%s project:%s version:%s%n", prNumber, title, version);
+          if (version != null) branchesMap.get(prNumber).add(convertVersionToBranch(version));
+        }
+      }
+    }
+    return branchesMap;
+  }
+
+  String extractVersion(String projectTitle) {
+    Matcher matcher = projectVersionPattern.matcher(projectTitle);
+    return matcher.matches() ? matcher.group(1) : null;
+  }
+
+  String convertVersionToBranch(String version) {
+    String[] versionParts = version.split("\\.");
+    String majorVersion = versionParts[0];
+    String minorVersion = versionParts[1];
+    String patchVersion = versionParts[2];
+
+    if (patchVersion.equals("0")) {
+      if (minorVersion.equals("0")) {
+        // e.g. project: "ScalarDB 4.0.0" -> branch: "master"
+        //
+        // This GitHub project corresponds to `main`/`master` branch.
+        return defaultBranch;
+      }
+      // e.g. project: "ScalarDB 3.8.0" -> branch: "3"
+      //
+      // This GitHub project corresponds to a support branch.
+      return majorVersion;
+    }
+    // e.g. project: "ScalarDB 3.7.1" -> branch: "3.7"
+    //
+    // This GitHub project corresponds to a release branch.
+    return majorVersion + "." + minorVersion;
+  }
+
+  void output(Map<String, Set<String>> branchesMap) {
+    StringBuilder builder = new StringBuilder();
+    for (Entry<String, Set<String>> entry : branchesMap.entrySet()) {
+      builder.append(format("%s\t%s%n", entry.getKey(), String.join(" ", entry.getValue())));
+    }
+    System.out.print(builder);
+  }
+
+  public static class GitHubContext {
+
+    private static final String ALIAS_PREFIX = "pr";
+    private static final int PROCESS_TIME_OUT_IN_SEC = 60;
+    /*
+     This outputs a line of the alias for each resolved pull request and a line
+     of the alias and the project title separated by a tab for each project.
+     The aliases that couldn't be resolved are null in the response, so they
+     don't appear in the output.
+    */
+    private static final String PROJECT_TITLES_FILTER =
+        ".data.repository as $repo"
+            + " | if ($repo | type) != \"object\" then error(\"Couldn't get the repository\")"
+            + " else $repo | to_entries[] | select(.value != null) | .key as $alias"
+            + " | $alias, ((.value.projectsV2.nodes // [])[] | \"\\($alias)\\t\\(.title)\")"
+            + " end";
+
+    private final String owner;
+    private final String repository;
+
+    public GitHubContext(String owner, String repository) {
+      this.owner = owner;
+      this.repository = repository;
+    }
+
+    /**
+     * Returns the project titles for each pull request. The pull requests that couldn't be resolved
+     * are not contained in the returned map.
+     */
+    Map<String, List<String>> getProjectTitles(List<String> prNumbers) throws Exception {
+      /*
+       `gh api graphql` exits with a non-zero code if any of the aliases couldn't
+       be resolved (e.g., a nonexistent pull request) even though the response
+       has the data of the other aliases. In that case, `--jq` isn't applied
+       either. So the exit code is ignored here, and the raw response is
+       filtered and validated with jq instead.
+      */
+      String response =
+          runSubProcessAndGetOutput(
+              List.of(
+                  "gh",
+                  "api",
+                  "graphql",
+                  "-F",
+                  "owner=" + this.owner,
+                  "-F",
+                  "repoName=" + this.repository,
+                  "-f",
+                  "query=" + buildQuery(prNumbers)),
+              null,
+              false);
+      if (response.isBlank()) throw new RuntimeException("Couldn't get the project titles");
+
+      BufferedReader br =
+          new BufferedReader(
+              new StringReader(
+                  runSubProcessAndGetOutput(
+                      List.of("jq", "-r", PROJECT_TITLES_FILTER), response, true)));
+
+      Map<String, List<String>> projectTitles = new HashMap<>();
+      String line;
+      while ((line = br.readLine()) != null) {
+        String[] aliasAndTitle = line.split("\t", 2);
+        if (!aliasAndTitle[0].startsWith(ALIAS_PREFIX)) continue;
+        String prNumber = aliasAndTitle[0].substring(ALIAS_PREFIX.length());
+        List<String> titles = projectTitles.computeIfAbsent(prNumber, k -> new ArrayList<>());
+        if (aliasAndTitle.length == 2) titles.add(aliasAndTitle[1]);
+      }
+      return projectTitles;
+    }
+
+    String buildQuery(List<String> prNumbers) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("query($owner: String!, $repoName: String!) {\n");
+      builder.append("  repository(owner: $owner, name: $repoName) {\n");
+      for (String prNumber : prNumbers) {
+        builder.append(
+            format(
+                "    %s%s: pullRequest(number: %s) {"
+                    + " projectsV2(first: 100) { nodes { title } } }%n",
+                ALIAS_PREFIX, prNumber, prNumber));
+      }
+      builder.append("  }\n");
+      builder.append("}\n");
+      return builder.toString();
+    }
+
+    String runSubProcessAndGetOutput(List<String> command, String input, boolean checkExitCode)
+        throws Exception {
+      if (DEBUG != null) System.err.printf("Executed: %s%n", String.join(" ", command));
+      Process p =
+          new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+      try (OutputStream os = p.getOutputStream()) {
+        if (input != null) os.write(input.getBytes(StandardCharsets.UTF_8));
+      }
+      String result;
+      try (BufferedReader br =
+          new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8)); ) {
+        result = br.lines().collect(Collectors.joining(System.lineSeparator()));
+      }
+
+      boolean isTerminated = p.waitFor(PROCESS_TIME_OUT_IN_SEC, TimeUnit.SECONDS);
+      if (!isTerminated) {
+        throw new RuntimeException(
+            format(
+                "WARN: Process was exceeded timeout(%d sec). command: %s%n",
+                PROCESS_TIME_OUT_IN_SEC, String.join(" ", command)));
+      }
+      if (checkExitCode && p.exitValue() != 0) {
+        throw new RuntimeException(
+            format(
+                "Command failed with exit code %d. command: %s",
+                p.exitValue(), String.join(" ", command)));
+      }
+
+      return result;
+    }
+  }
+}
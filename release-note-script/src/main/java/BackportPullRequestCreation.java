@@ -0,0 +1,490 @@
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BackportPullRequestCreation creates the backport pull requests of a merged pull request for the
+ * target branches. The repository is fetched only once, and then the commit is cherry-picked to
+ * all the target branches concurrently, each in its own git worktree. The created branches are
+ * pushed in a batch. If the cherry-pick fails with a conflict, a draft pull request containing an
+ * empty commit is created instead so that the backport can be done manually. If anything else
+ * fails, an issue is created.
+ *
+ * <p>This script is assumed to be executed in a GitHub Actions workflow in the clone of the target
+ * repository.
+ *
+ * <p>Note that it is needed that java 11 to execute this script since it is executed as a
+ * Single-File Source-code program.
+ */
+@SuppressWarnings("DefaultPackage")
+public class BackportPullRequestCreation {
+
+  private static final String DEBUG = System.getenv("DEBUG");
+
+  private final GitContext gitContext;
+  private final GitHubContext ghContext;
+  private final String pullRequestId;
+  private final String pullRequestUrl;
+  private final String pullRequestTitle;
+  private final String commitSha;
+
+  public static void main(String... args) throws Exception {
+    if (args.length < 6) {
+      System.err.printf(
+          "Usage:%n    java %s.java <pullRequestId> <pullRequestUrl> <pullRequestTitle>"
+              + " <commitSha> <assignee> <branch>...%n%nExample:%n    java %s.java 123"
+              + " https://github.com/scalar-labs/scalardb/pull/123 \"Fix a bug\" 0123abc"
+              + " octocat 3 3.9%n",
+          BackportPullRequestCreation.class.getSimpleName(),
+          BackportPullRequestCreation.class.getSimpleName());
+      System.exit(1);
+    }
+
+    /*
+    This script is assumed to run on the GitHub Actions workflow and the
+    parameters are passed in the workflow automatically. Therefore, the
+    validation for the arguments is omitted.
+    */
+    String pullRequestId = args[0];
+    String pullRequestUrl = args[1];
+    String pullRequestTitle = args[2];
+    String commitSha = args[3];
+    String assignee = args[4];
+    // The branches can be passed as a newline-separated string as well
+    List<String> branches =
+        Arrays.stream(args, 5, args.length)
+            .flatMap(arg -> Arrays.stream(arg.trim().split("\\s+")))
+            .filter(branch -> !branch.isEmpty())
+            .collect(Collectors.toList());
+
+    BackportPullRequestCreation main =
+        new BackportPullRequestCreation(
+            new GitContext(new File(".")),
+            new GitHubContext(assignee),
+            pullRequestId,
+            pullRequestUrl,
+            pullRequestTitle,
+            commitSha);
+    main.createPullRequests(branches);
+  }
+
+  public BackportPullRequestCreation(
+      GitContext gitContext,
+      GitHubContext ghContext,
+      String pullRequestId,
+      String pullRequestUrl,
+      String pullRequestTitle,
+      String commitSha) {
+    this.gitContext = gitContext;
+    this.ghContext = ghContext;
+    this.pullRequestId = pullRequestId;
+    this.pullRequestUrl = pullRequestUrl;
+    this.pullRequestTitle = pullRequestTitle;
+    this.commitSha = commitSha;
+  }
+
+  public void createPullRequests(List<String> branches) throws Exception {
+    // Use the author info of the original Git commit
+    gitContext.configureAuthor(commitSha);
+    gitContext.fetch();
+
+    Set<String> uniqueBranches = new LinkedHashSet<>(branches);
+    List<Backport> backports = new ArrayList<>();
+    Path worktreeRoot = Files.createTempDirectory("backport-" + pullRequestId + "-");
+    try {
+      for (String branch : uniqueBranches) {
+        Backport backport =
+            new Backport(
+                branch,
+                branch + "-pull-" + pullRequestId,
+                worktreeRoot.resolve(String.valueOf(backports.size())));
+        backports.add(backport);
+        addWorktree(backport);
+      }
+
+      cherryPickInParallel(backports);
+      pushInBatch(backports);
+
+      for (Backport backport : backports) {
+        createPullRequestOrIssue(backport);
+      }
+    } finally {
+      for (Backport backport : backports) {
+        removeWorktree(backport);
+      }
+      deleteDirectory(worktreeRoot);
+      // Unregister the worktrees whose removal failed, which would block the next backport
+      pruneWorktrees();
+    }
+  }
+
+  private void addWorktree(Backport backport) {
+    try {
+      gitContext.addWorktree(backport.worktree, backport.newBranch, backport.branch);
+    } catch (Exception e) {
+      System.err.println("ERROR: failed creating the worktree for the branch: " + backport.branch);
+      e.printStackTrace();
+      backport.status = Status.FAILED;
+    }
+  }
+
+  private void cherryPickInParallel(List<Backport> backports) throws Exception {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (Backport backport : backports) {
+      if (backport.status != Status.FAILED) {
+        tasks.add(
+            () -> {
+              cherryPick(backport);
+              return null;
+            });
+      }
+    }
+    if (tasks.isEmpty()) return;
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void cherryPick(Backport backport) {
+    System.err.println("INFO: Cherry-picking to the branch: " + backport.branch);
+    try {
+      if (gitContext.cherryPick(backport.worktree, commitSha)) {
+        backport.status = Status.CHERRY_PICKED;
+      } else {
+        // If the cherry-pick fails, creates the backport PR draft containing an empty commit
+        gitContext.abortCherryPick(backport.worktree);
+        gitContext.commitEmpty(backport.worktree, "Empty commit [skip ci]");
+        backport.status = Status.CONFLICTED;
+      }
+    } catch (Exception e) {
+      System.err.println("ERROR: failed cherry-picking to the branch: " + backport.branch);
+      e.printStackTrace();
+      backport.status = Status.FAILED;
+    }
+  }
+
+  private void pushInBatch(List<Backport> backports) {
+    List<Backport> targets =
+        backports.stream().filter(b -> b.status != Status.FAILED).collect(Collectors.toList());
+    if (targets.isEmpty()) return;
+
+    List<String> newBranches = targets.stream().map(b -> b.newBranch).collect(Collectors.toList());
+    if (gitContext.push(newBranches)) return;
+
+    // Find out which branches failed to be pushed
+    for (Backport backport : targets) {
+      if (!gitContext.push(List.of(backport.newBranch))) {
+        System.err.println("ERROR: failed pushing the branch: " + backport.newBranch);
+        backport.status = Status.FAILED;
+      }
+    }
+  }
+
+  private void createPullRequestOrIssue(Backport backport) {
+    try {
+      if (backport.status == Status.CHERRY_PICKED) {
+        ghContext.createPullRequest(
+            backport.branch,
+            backport.newBranch,
+            getPullRequestTitle(backport),
+            getSuccessfulBackportPullRequestBody(),
+            false);
+        return;
+      }
+      if (backport.status == Status.CONFLICTED) {
+        ghContext.createPullRequest(
+            backport.branch,
+            backport.newBranch,
+            getPullRequestTitle(backport),
+            getFailedBackportPullRequestBody(backport),
+            true);
+        return;
+      }
+    } catch (Exception e) {
+      System.err.println(
+          "ERROR: failed creating the pull request for the branch: " + backport.branch);
+      e.printStackTrace();
+    }
+
+    try {
+      ghContext.createIssue(
+          format("Backport to branch(%s) failed: %s", backport.branch, pullRequestTitle),
+          format(
+              "Backport of %s for commit %s to branch(%s) failed",
+              pullRequestUrl, commitSha, backport.branch));
+    } catch (Exception e) {
+      System.err.println("ERROR: failed creating the issue for the branch: " + backport.branch);
+      e.printStackTrace();
+    }
+  }
+
+  private void removeWorktree(Backport backport) {
+    try {
+      if (Files.exists(backport.worktree)) gitContext.removeWorktree(backport.worktree);
+    } catch (Exception e) {
+      System.err.println("WARN: failed removing the worktree: " + backport.worktree);
+    }
+  }
+
+  private void deleteDirectory(Path dir) {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    } catch (IOException e) {
+      System.err.println("WARN: failed deleting the directory: " + dir);
+      e.printStackTrace();
+    }
+  }
+
+  private void pruneWorktrees() {
+    try {
+      gitContext.pruneWorktrees();
+    } catch (Exception e) {
+      System.err.println("WARN: failed pruning the worktrees");
+      e.printStackTrace();
+    }
+  }
+
+  private String getPullRequestTitle(Backport backport) {
+    return format("Backport to branch(%s) : %s", backport.branch, pullRequestTitle);
+  }
+
+  private String getSuccessfulBackportPullRequestBody() {
+    return format(
+        "This is an automated backport of the following:%n%n"
+            + "- **Original PR:** %s%n"
+            + "- **Backported commit:** %s%n%n"
+            + "Please merge this PR after all checks have passed.",
+        pullRequestUrl, commitSha);
+  }
+
+  private String getFailedBackportPullRequestBody(Backport backport) {
+    return format(
+        "This is an automated request for a manual backport of the following:%n%n"
+            + "- **Original PR:** %s%n"
+            + "- **Commit to backport:** %s%n%n"
+            + "1. Resolve any conflicts that occur during the cherry-picking process.%n%n"
+            + "```console%n"
+            + "git fetch origin &&%n"
+            + "git checkout %s &&%n"
+            + "git cherry-pick --no-rerere-autoupdate -m1 %s%n"
+            + "```%n%n"
+            + "2. Push the changes.%n"
+            + "3. Merge this PR after all checks have passed.%n%n"
+            + "Thank you!",
+        pullRequestUrl, commitSha, backport.newBranch, commitSha);
+  }
+
+  enum Status {
+    PENDING,
+    CHERRY_PICKED,
+    CONFLICTED,
+    FAILED
+  }
+
+  static class Backport {
+    final String branch;
+    final String newBranch;
+    final Path worktree;
+    volatile Status status = Status.PENDING;
+
+    Backport(String branch, String newBranch, Path worktree) {
+      this.branch = branch;
+      this.newBranch = newBranch;
+      this.worktree = worktree;
+    }
+  }
+
+  public static class GitContext {
+
+    private static final String REMOTE = "origin";
+    private static final int PROCESS_TIME_OUT_IN_SEC = 300;
+
+    private final File dir;
+
+    public GitContext(File dir) {
+      this.dir = dir;
+    }
+
+    void configureAuthor(String commitSha) throws Exception {
+      /*
+       The author is configured in the repository rather than globally. The
+       configuration is shared with all the worktrees of the repository.
+      */
+      String email = run(dir, "git", "show", "-s", "--format=%ae", commitSha).trim();
+      String name = run(dir, "git", "show", "-s", "--format=%an", commitSha).trim();
+      run(dir, "git", "config", "user.email", email);
+      run(dir, "git", "config", "user.name", name);
+    }
+
+    void fetch() throws Exception {
+      run(dir, "git", "fetch", REMOTE);
+    }
+
+    void addWorktree(Path worktree, String newBranch, String branch) throws Exception {
+      String startPoint = REMOTE + "/" + branch;
+      run(dir, "git", "worktree", "add", "-B", newBranch, worktree.toString(), startPoint);
+    }
+
+    boolean cherryPick(Path worktree, String commitSha) throws Exception {
+      int exitCode =
+          exitCode(
+              worktree.toFile(), "git", "cherry-pick", "--no-rerere-autoupdate", "-m1", commitSha);
+      return exitCode == 0;
+    }
+
+    void abortCherryPick(Path worktree) throws Exception {
+      run(worktree.toFile(), "git", "cherry-pick", "--abort");
+    }
+
+    void commitEmpty(Path worktree, String message) throws Exception {
+      run(worktree.toFile(), "git", "commit", "--allow-empty", "-m", message);
+    }
+
+    boolean push(List<String> branches) {
+      List<String> command = new ArrayList<>(List.of("git", "push", "-u", REMOTE));
+      command.addAll(branches);
+      try {
+        return exitCode(dir, command.toArray(new String[0])) == 0;
+      } catch (Exception e) {
+        e.printStackTrace();
+        return false;
+      }
+    }
+
+    void removeWorktree(Path worktree) throws Exception {
+      run(dir, "git", "worktree", "remove", "--force", worktree.toString());
+    }
+
+    void pruneWorktrees() throws Exception {
+      run(dir, "git", "worktree", "prune");
+    }
+
+    private String run(File workDir, String... command) throws Exception {
+      StringBuilder output = new StringBuilder();
+      int exitCode = execute(workDir, output, command);
+      if (exitCode != 0) {
+        throw new RuntimeException(
+            format(
+                "Command failed with exit code %d. command: %s",
+                exitCode, String.join(" ", command)));
+      }
+      return output.toString();
+    }
+
+    private int exitCode(File workDir, String... command) throws Exception {
+      return execute(workDir, new StringBuilder(), command);
+    }
+
+    private int execute(File workDir, StringBuilder output, String... command) throws Exception {
+      if (DEBUG != null) System.err.printf("Executed: %s%n", String.join(" ", command));
+      Process p =
+          new ProcessBuilder(command)
+              .directory(workDir)
+              .redirectError(ProcessBuilder.Redirect.INHERIT)
+              .start();
+
+      try (BufferedReader br =
+          new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+        output.append(br.lines().collect(Collectors.joining(System.lineSeparator())));
+      }
+
+      boolean isTerminated = p.waitFor(PROCESS_TIME_OUT_IN_SEC, TimeUnit.SECONDS);
+      if (!isTerminated) {
+        p.destroyForcibly();
+        throw new RuntimeException(
+            format(
+                "WARN: Process was exceeded timeout(%d sec). command: %s%n",
+                PROCESS_TIME_OUT_IN_SEC, String.join(" ", command)));
+      }
+      return p.exitValue();
+    }
+  }
+
+  public static class GitHubContext {
+
+    private static final int PROCESS_TIME_OUT_IN_SEC = 60;
+
+    private final String assignee;
+
+    public GitHubContext(String assignee) {
+      this.assignee = assignee;
+    }
+
+    void createPullRequest(String base, String head, String title, String body, boolean draft)
+        throws Exception {
+      List<String> command =
+          new ArrayList<>(
+              List.of(
+                  "gh",
+                  "pr",
+                  "create",
+                  "--assignee",
+                  assignee,
+                  "--base",
+                  base,
+                  "--head",
+                  head,
+                  "--title",
+                  title,
+                  "--body",
+                  body));
+      if (draft) command.add("--draft");
+      run(command);
+    }
+
+    void createIssue(String title, String body) throws Exception {
+      run(
+          List.of(
+              "gh", "issue", "create", "--assignee", assignee, "--title", title, "--body", body));
+    }
+
+    private void run(List<String> command) throws Exception {
+      if (DEBUG != null) System.err.printf("Executed: %s%n", String.join(" ", command));
+      Process p = new ProcessBuilder(command).inheritIO().start();
+
+      boolean isTerminated = p.waitFor(PROCESS_TIME_OUT_IN_SEC, TimeUnit.SECONDS);
+      if (!isTerminated) {
+        p.destroyForcibly();
+        throw new RuntimeException(
+            format(
+                "WARN: Process was exceeded timeout(%d sec). command: %s%n",
+                PROCESS_TIME_OUT_IN_SEC, String.join(" ", command)));
+      }
+      if (p.exitValue() != 0) {
+        throw new RuntimeException(
+            format(
+                "Command failed with exit code %d. command: %s",
+                p.exitValue(), String.join(" ", command)));
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * LatestReleaseFinder finds the latest release names for multiple release patterns at once. The
+ * release names are read from standard input (one per line, e.g., the output of {@code
+ * vuln-check-script/fetch_gh_releases}) and sorted only once, and then only the release names that
+ * start with each release pattern are looked at. The result is written out to standard output as
+ * lines of the release pattern and the latest release name separated by a tab.
+ *
+ * <p>A release pattern can be a full release name (e.g., v3.9.2) or a prefix (e.g., v3.9, v3 or
+ * scalardb-k8s-1). As in {@code vuln-check-script/find_latest_release}, the rest of a release name
+ * after the release pattern must consist of integer version units (e.g., ".9.10" for v3.9), and a
+ * release name that has a non-integer version unit (e.g., v3.9.0-rc1) is skipped with a warning. If
+ * the release pattern ends with a digit, the rest must start with a dot so that, for instance,
+ * v3.90.1 doesn't match v3.9.
+ *
+ * <p>Note that it is needed that java 11 to execute this script since it is executed as a
+ * Single-File Source-code program.
+ */
+@SuppressWarnings("DefaultPackage")
+public class LatestReleaseFinder {
+
+  private static final String DEBUG = System.getenv("DEBUG");
+  private static final Pattern PATTERN_VERSION_UNIT = Pattern.compile("^[0-9]+$");
+
+  // The release names that start with a release pattern are adjacent in this set
+  private final NavigableSet<String> releases = new TreeSet<>();
+
+  public static void main(String... args) throws Exception {
+    if (args.length == 0) {
+      System.err.printf(
+          "Usage:%n    java %s.java <releasePattern>... < releases%n%nExample:%n"
+              + "    ../vuln-check-script/fetch_gh_releases scalar-labs scalardb | java %s.java"
+              + " v3.9 v4%n",
+          LatestReleaseFinder.class.getSimpleName(), LatestReleaseFinder.class.getSimpleName());
+      System.exit(1);
+    }
+
+    List<String> releases;
+    try (BufferedReader br =
+        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+      releases = br.lines().map(String::trim).collect(Collectors.toList());
+    }
+
+    LatestReleaseFinder main = new LatestReleaseFinder(releases);
+    main.output(main.findLatestReleases(Arrays.asList(args)));
+  }
+
+  public LatestReleaseFinder(List<String> releases) {
+    for (String release : releases) {
+      if (!release.isEmpty()) this.releases.add(release);
+    }
+  }
+
+  public Map<String, String> findLatestReleases(List<String> releasePatterns) {
+    Map<String, String> latestReleases = new LinkedHashMap<>();
+    for (String releasePattern : releasePatterns) {
+      String latestRelease = findLatestRelease(releasePattern);
+      if (DEBUG != null) System.err.printf("pattern:%s latest:%s%n", releasePattern, latestRelease);
+      if (latestRelease != null) latestReleases.put(releasePattern, latestRelease);
+    }
+    return latestReleases;
+  }
+
+  public String findLatestRelease(String releasePattern) {
+    // Remove a trailing dot if exists
+    String pattern =
+        releasePattern.endsWith(".")
+            ? releasePattern.substring(0, releasePattern.length() - 1)
+            : releasePattern;
+    boolean endsWithDigit = !pattern.isEmpty() && isDigit(pattern.charAt(pattern.length() - 1));
+
+    String latestRelease = null;
+    List<Integer> latestVersions = null;
+    for (String release : releases.tailSet(pattern, true)) {
+      if (!release.startsWith(pattern)) break;
+
+      // Get the rest of string after `pattern` (e.g., ".9.1" for "v3" and "v3.9.1")
+      String restVersions = release.substring(pattern.length());
+      // e.g., "v3.90.1" for "v3.9"
+      if (endsWithDigit && !restVersions.isEmpty() && isDigit(restVersions.charAt(0))) continue;
+
+      List<Integer> versions = parseVersions(restVersions);
+      if (versions == null) {
+        System.err.printf("Found invalid version unit '%s'. Skipping it.%n", restVersions);
+        continue;
+      }
+      if (latestVersions == null || compareVersions(versions, latestVersions) > 0) {
+        latestRelease = release;
+        latestVersions = versions;
+      }
+    }
+    return latestRelease;
+  }
+
+  private List<Integer> parseVersions(String restVersions) {
+    List<Integer> versions = new ArrayList<>();
+    for (String partOfVersion : restVersions.split("\\.")) {
+      // Empty string is expected
+      if (partOfVersion.isEmpty()) continue;
+      if (!PATTERN_VERSION_UNIT.matcher(partOfVersion).matches()) return null;
+      try {
+        versions.add(Integer.parseInt(partOfVersion));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return versions;
+  }
+
+  /*
+   Compare the partial version integers from the first one. If one is a prefix
+   of the other, the longer one is regarded as later (e.g., 3.9.1 > 3.9).
+  */
+  private int compareVersions(List<Integer> a, List<Integer> b) {
+    for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+      int result = Integer.compare(a.get(i), b.get(i));
+      if (result != 0) return result;
+    }
+    return Integer.compare(a.size(), b.size());
+  }
+
+  private boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  void output(Map<String, String> latestReleases) {
+    StringBuilder builder = new StringBuilder();
+    for (Entry<String, String> entry : latestReleases.entrySet()) {
+      builder.append(format("%s\t%s%n", entry.getKey(), entry.getValue()));
+    }
+    System.out.print(builder);
+  }
+}
@@ -49,11 +49,15 @@ public class MergeReleaseNotes {
   }
 
   public void createMergedReleaseNote() throws Exception {
-    load(new File("scalardb.md"), Edition.COMMUNITY, Repository.DB);
-    load(new File("cluster.md"), Edition.ENTERPRISE, Repository.CLUSTER);
-    load(new File("graphql.md"), Edition.ENTERPRISE, Repository.GRAPHQL);
-    load(new File("sql.md"), Edition.ENTERPRISE, Repository.SQL);
-    output();
+    System.out.print(createMergedReleaseNote(new File(".")));
+  }
+
+  public String createMergedReleaseNote(File dir) throws Exception {
+    load(new File(dir, "scalardb.md"), Edition.COMMUNITY, Repository.DB);
+    load(new File(dir, "cluster.md"), Edition.ENTERPRISE, Repository.CLUSTER);
+    load(new File(dir, "graphql.md"), Edition.ENTERPRISE, Repository.GRAPHQL);
+    load(new File(dir, "sql.md"), Edition.ENTERPRISE, Repository.SQL);
+    return buildMergedReleaseNote();
   }
 
   void load(File file, Edition edition, Repository repository) throws Exception {
@@ -125,29 +129,35 @@ public class MergeReleaseNotes {
   }
 
   void output() {
-    System.out.print("## Summary\n\n");
+    System.out.print(buildMergedReleaseNote());
+  }
+
+  String buildMergedReleaseNote() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("## Summary\n\n");
     Arrays.stream(Edition.values())
         .forEach(
             edition -> {
-              outputSections(edition);
-              System.out.println();
+              appendSections(builder, edition);
+              builder.append(System.lineSeparator());
             });
+    return builder.toString();
   }
 
-  private void outputSections(Edition edition) {
+  private void appendSections(StringBuilder builder, Edition edition) {
     Map<Category, Map<Repository, List<ReleaseNote>>> categoryMap = editionMap.get(edition);
     if (categoryMap == null || categoryMap.isEmpty()) return;
 
-    System.out.printf("## %s edition%n", edition.getEdition());
+    builder.append(String.format("## %s edition%n", edition.getEdition()));
     Arrays.stream(Category.values())
-        .forEach(category -> outputReleaseNotes(category, categoryMap.get(category)));
+        .forEach(category -> appendReleaseNotes(builder, category, categoryMap.get(category)));
   }
 
-  private void outputReleaseNotes(
-      Category category, Map<Repository, List<ReleaseNote>> repositoryMap) {
+  private void appendReleaseNotes(
+      StringBuilder builder, Category category, Map<Repository, List<ReleaseNote>> repositoryMap) {
     if (repositoryMap == null || repositoryMap.isEmpty()) return;
 
-    System.out.printf("### %s%n", category.getDisplayName());
+    builder.append(String.format("### %s%n", category.getDisplayName()));
     Arrays.stream(Repository.values())
         .forEach(
             repository -> {
@@ -163,9 +173,9 @@ public class MergeReleaseNotes {
                  is needed for the repositories in the enterprise edition.
                 */
                 if (!repository.equals(Repository.DB))
-                  System.out.printf("#### %s%n", repository.getDisplayName());
+                  builder.append(String.format("#### %s%n", repository.getDisplayName()));
                 for (ReleaseNote rn : releaseNotes) {
-                  System.out.printf("- %s%n", rn.releaseNoteText);
+                  builder.append(String.format("- %s%n", rn.releaseNoteText));
                 }
               }
             });
@@ -1,16 +1,22 @@
 import static java.lang.String.format;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,6 +28,12 @@ import java.util.stream.Collectors;
  *
  * <p>This script is assumed to be executed in a GitHub Actions workflow.
  *
+ * <p>With the {@code --commit-range} option, the target pull requests are collected from the merge
+ * commits and the squash-merge commits between two refs of the local clone instead of the GitHub
+ * project. In that mode, the labels and the body of each pull request are read from the local
+ * metadata cache specified by the {@code RELEASE_NOTE_CACHE_DIR} environment variable if they have
+ * been recorded there by a previous run.
+ *
  * <p>Note that it is needed that java 11 to execute this script since it is executed as a
  * Single-File Source-code program.
  */
@@ -29,6 +41,7 @@ import java.util.stream.Collectors;
 public class ReleaseNoteCreation {
 
   private static final String DEBUG = System.getenv("DEBUG");
+  private static final String OPTION_COMMIT_RANGE = "--commit-range";
   private static final Pattern PATTERN_RELEASE_NOTE_TEXT = Pattern.compile("^ *-? *(\\p{Print}+)$");
   private static final Pattern PATTERN_SAME_AS_TEXT =
       Pattern.compile("^ *-? *[Ss]ame ?[Aa]s +#?([0-9]+) *$");
@@ -37,14 +50,38 @@ public class ReleaseNoteCreation {
 
   final Map<Category, List<ReleaseNoteText>> categoryMap = new EnumMap<>(Category.class);
   final Map<String, List<ReleaseNoteText>> sameAsItems = new HashMap<>();
+  final List<String> failedPrNumbers = new ArrayList<>();
 
   public static void main(String... args) throws Exception {
+    String cacheDir = System.getenv("RELEASE_NOTE_CACHE_DIR");
+
+    if (args.length == 5 && OPTION_COMMIT_RANGE.equals(args[0])) {
+      // e.g., java ReleaseNoteCreation.java --commit-range scalar-labs scalardb v3.9.0 v3.9.1
+      ReleaseNoteCreation main =
+          new ReleaseNoteCreation(
+              new LocalGitContext(
+                  args[1], args[2], args[3], args[4], createCache(cacheDir, args[1], args[2])));
+      main.createReleaseNote();
+      if (!main.failedPrNumbers.isEmpty()) {
+        // Unlike the workflow, the result of this mode is expected to be complete
+        System.err.println("ERROR: failed processing the PRs: " + main.failedPrNumbers);
+        System.exit(1);
+      }
+      return;
+    }
+
     if (args.length != 4) {
       System.err.printf(
           "Usage:%n    java %s.java <owner> <projectTitlePrefix> <version>"
-              + " <repository>%n%nExample:%n    java %s.java scalar-labs ScalarDB 4.0.0"
-              + " scalardb%n",
-          ReleaseNoteCreation.class.getSimpleName(), ReleaseNoteCreation.class.getSimpleName());
+              + " <repository>%n    java %s.java %s <owner> <repository> <fromRef>"
+              + " <toRef>%n%nExample:%n    java %s.java scalar-labs ScalarDB 4.0.0"
+              + " scalardb%n    java %s.java %s scalar-labs scalardb v3.9.0 v3.9.1%n",
+          ReleaseNoteCreation.class.getSimpleName(),
+          ReleaseNoteCreation.class.getSimpleName(),
+          OPTION_COMMIT_RANGE,
+          ReleaseNoteCreation.class.getSimpleName(),
+          ReleaseNoteCreation.class.getSimpleName(),
+          OPTION_COMMIT_RANGE);
       System.exit(1);
     }
 
@@ -59,23 +96,37 @@ public class ReleaseNoteCreation {
     String repository = args[3];
 
     ReleaseNoteCreation main =
-        new ReleaseNoteCreation(owner, projectTitlePrefix, version, repository);
+        new ReleaseNoteCreation(
+            new GitHubContext(
+                owner,
+                projectTitlePrefix,
+                version,
+                repository,
+                createCache(cacheDir, owner, repository)));
     main.createReleaseNote();
   }
 
+  private static PullRequestCache createCache(String cacheDir, String owner, String repository) {
+    if (cacheDir == null) return null;
+    return new PullRequestCache(Paths.get(cacheDir).resolve(owner).resolve(repository));
+  }
+
   public ReleaseNoteCreation(
       String owner, String projectTitlePrefix, String version, String repository) {
     ghContext = new GitHubContext(owner, projectTitlePrefix, version, repository);
   }
 
-  /** This constructor is only for test */
+  /** This constructor is for the contexts other than the default one and for test */
   public ReleaseNoteCreation(GitHubContext ghContext) {
     this.ghContext = ghContext;
   }
 
   public void createReleaseNote() throws Exception {
-    String projectId = ghContext.getProjectId();
-    List<String> prNumbers = ghContext.getPullRequestNumbers(projectId);
+    System.out.println(generateReleaseNote());
+  }
+
+  public String generateReleaseNote() throws Exception {
+    List<String> prNumbers = ghContext.getTargetPullRequestNumbers();
 
     for (String prNumber : prNumbers) {
       try {
@@ -84,11 +135,12 @@ public class ReleaseNoteCreation {
       } catch (Exception e) {
         System.err.println("ERROR: failed processing the PR: " + prNumber);
         e.printStackTrace();
+        failedPrNumbers.add(prNumber);
       }
     }
 
     assortSameAsItems();
-    outputReleaseNote();
+    return buildReleaseNote();
   }
 
   void extractReleaseNoteInfo(String prNumber) throws Exception {
@@ -191,6 +243,10 @@ public class ReleaseNoteCreation {
   }
 
   void outputReleaseNote() {
+    System.out.println(buildReleaseNote());
+  }
+
+  String buildReleaseNote() {
     StringBuilder builder = new StringBuilder();
     builder.append("## Summary\n\n");
 
@@ -203,7 +259,7 @@ public class ReleaseNoteCreation {
                 builder.append(getFormattedReleaseNotes(releaseNotes)).append("\n");
               }
             });
-    System.out.println(builder);
+    return builder.toString();
   }
 
   private String getFormattedReleaseNotes(List<ReleaseNoteText> releaseNotes) {
@@ -276,15 +332,34 @@ public class ReleaseNoteCreation {
     private final String projectTitlePrefix;
     private final String version;
     private final String repository;
+    final PullRequestCache cache;
 
     public GitHubContext(String owner, String projectTitString, String version, String repository) {
+      this(owner, projectTitString, version, repository, null);
+    }
+
+    /**
+     * The labels and the body of the pull requests are recorded to the given cache unless it is
+     * null.
+     */
+    public GitHubContext(
+        String owner,
+        String projectTitString,
+        String version,
+        String repository,
+        PullRequestCache cache) {
       this.owner = owner;
       this.projectTitlePrefix = projectTitString;
       this.version = version;
       this.repository = repository;
+      this.cache = cache;
     }
 
-    private String getProjectId() throws Exception {
+    List<String> getTargetPullRequestNumbers() throws Exception {
+      return getPullRequestNumbers(getProjectId());
+    }
+
+    String getProjectId() throws Exception {
       /*
        * Includes closed project if we get the project list so that we can run
        * this script to the closed project for debug.
@@ -312,7 +387,7 @@ public class ReleaseNoteCreation {
       return this.version.substring(0, index);
     }
 
-    private List<String> getPullRequestNumbers(String projectId) throws Exception {
+    List<String> getPullRequestNumbers(String projectId) throws Exception {
       BufferedReader br =
           runSubProcessAndGetOutputAsReader(
               format(
@@ -353,22 +428,46 @@ public class ReleaseNoteCreation {
                   prNumber, this.owner, this.repository));
 
       String line;
+      List<String> labels = new ArrayList<>();
       while ((line = br.readLine()) != null) {
-        if (isValidCategory(line)) return Category.fromLabel(line);
+        labels.add(line);
+      }
+      if (cache != null) cache.putLabels(prNumber, labels);
+      return getCategoryFromLabels(labels);
+    }
+
+    Category getCategoryFromLabels(List<String> labels) {
+      for (String label : labels) {
+        if (isValidCategory(label)) return Category.fromLabel(label);
       }
       return Category.MISCELLANEOUS;
     }
 
     BufferedReader getPullRequestBody(String prNumber) throws Exception {
-      return runSubProcessAndGetOutputAsReader(
-          format(
-              "gh pr view %s --repo %s/%s --jq \".body\" --json body",
-              prNumber, this.owner, this.repository));
+      BufferedReader br =
+          runSubProcessAndGetOutputAsReader(
+              format(
+                  "gh pr view %s --repo %s/%s --jq \".body\" --json body",
+                  prNumber, this.owner, this.repository));
+      if (cache == null) return br;
+
+      String body = br.lines().collect(Collectors.joining(System.lineSeparator()));
+      cache.putBody(prNumber, body);
+      return new BufferedReader(new StringReader(body));
     }
 
+    /*
+     This fails if any command in the pipeline fails so that the output of a
+     failed command (e.g., an empty body) isn't recorded to the cache.
+    */
     BufferedReader runSubProcessAndGetOutputAsReader(String command) throws Exception {
-      if (DEBUG != null) System.err.printf("Executed: %s%n", command);
-      Process p = new ProcessBuilder("bash", "-c", command).start();
+      return runSubProcessAndGetOutputAsReader(List.of("bash", "-o", "pipefail", "-c", command));
+    }
+
+    BufferedReader runSubProcessAndGetOutputAsReader(List<String> command) throws Exception {
+      if (DEBUG != null) System.err.printf("Executed: %s%n", String.join(" ", command));
+      Process p =
+          new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
 
       BufferedReader result = null;
       try (BufferedReader br =
@@ -382,7 +481,13 @@ public class ReleaseNoteCreation {
         throw new RuntimeException(
             format(
                 "WARN: Process was exceeded timeout(%d sec). command: %s%n",
-                PROCESS_TIME_OUT_IN_SEC, command));
+                PROCESS_TIME_OUT_IN_SEC, String.join(" ", command)));
+      }
+      if (p.exitValue() != 0) {
+        throw new RuntimeException(
+            format(
+                "Command failed with exit code %d. command: %s",
+                p.exitValue(), String.join(" ", command)));
       }
 
       return result;
@@ -393,4 +498,143 @@ public class ReleaseNoteCreation {
           .anyMatch(target -> target.getLabel().equalsIgnoreCase(category));
     }
   }
+
+  /**
+   * LocalGitContext collects the target pull requests from the commits between two refs of the
+   * local clone. The pull request numbers are taken from the merge commits (e.g., "Merge pull
+   * request #123 from ...") and the squash-merge commits (e.g., "Add a feature (#123)"). The labels
+   * and the body of each pull request are read from the local metadata cache if they exist, or
+   * otherwise retrieved from GitHub and recorded to the cache.
+   */
+  public static class LocalGitContext extends GitHubContext {
+
+    private static final Pattern PATTERN_MERGE_COMMIT =
+        Pattern.compile("^Merge pull request #([0-9]+) from .*$");
+    private static final Pattern PATTERN_SQUASH_MERGE_COMMIT =
+        Pattern.compile("^.*\\(#([0-9]+)\\) *$");
+
+    private final String fromRef;
+    private final String toRef;
+
+    public LocalGitContext(
+        String owner, String repository, String fromRef, String toRef, PullRequestCache cache) {
+      super(owner, null, null, repository, cache);
+      this.fromRef = fromRef;
+      this.toRef = toRef;
+    }
+
+    @Override
+    List<String> getTargetPullRequestNumbers() throws Exception {
+      String fromCommit = resolveCommit(this.fromRef);
+      String toCommit = resolveCommit(this.toRef);
+
+      /*
+       Only the commits that were added to the branch itself are followed with
+       `--first-parent`. Otherwise, the commits inside merged feature branches
+       would be taken as well, and their subjects may contain "(#123)" that
+       refers to an issue or to a pull request that isn't part of this range.
+      */
+      BufferedReader br =
+          runSubProcessAndGetOutputAsReader(
+              List.of(
+                  "git",
+                  "log",
+                  "--first-parent",
+                  "--reverse",
+                  "--format=%s",
+                  fromCommit + ".." + toCommit));
+      return extractPullRequestNumbers(br);
+    }
+
+    /*
+     A mistyped or unfetched ref must not be regarded as an empty range, so
+     each ref is resolved to a commit before the commits are listed.
+    */
+    private String resolveCommit(String ref) throws Exception {
+      String commit;
+      try {
+        commit =
+            runSubProcessAndGetOutputAsReader(
+                    List.of("git", "rev-parse", "--verify", ref + "^{commit}"))
+                .readLine();
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Couldn't resolve the ref: " + ref, e);
+      }
+      if (commit == null) throw new IllegalArgumentException("Couldn't resolve the ref: " + ref);
+      return commit;
+    }
+
+    List<String> extractPullRequestNumbers(BufferedReader commitSubjects) throws Exception {
+      Set<String> prNumbers = new LinkedHashSet<>();
+      String line;
+      while ((line = commitSubjects.readLine()) != null) {
+        Matcher mergeCommitMatcher = PATTERN_MERGE_COMMIT.matcher(line);
+        Matcher squashMergeCommitMatcher = PATTERN_SQUASH_MERGE_COMMIT.matcher(line);
+        if (mergeCommitMatcher.matches()) {
+          prNumbers.add(mergeCommitMatcher.group(1));
+        } else if (squashMergeCommitMatcher.matches()) {
+          prNumbers.add(squashMergeCommitMatcher.group(1));
+        }
+      }
+      return new ArrayList<>(prNumbers);
+    }
+
+    @Override
+    boolean isPullRequestMerged(String prNumber) {
+      // The pull requests found in the commit history have already been merged.
+      return true;
+    }
+
+    @Override
+    Category getCategoryFromPullRequest(String prNumber) throws Exception {
+      List<String> labels = cache == null ? null : cache.getLabels(prNumber);
+      if (labels == null) return super.getCategoryFromPullRequest(prNumber);
+      return getCategoryFromLabels(labels);
+    }
+
+    @Override
+    BufferedReader getPullRequestBody(String prNumber) throws Exception {
+      String body = cache == null ? null : cache.getBody(prNumber);
+      if (body == null) return super.getPullRequestBody(prNumber);
+      return new BufferedReader(new StringReader(body));
+    }
+  }
+
+  /**
+   * PullRequestCache stores the labels and the body of pull requests in a local directory. Each
+   * pull request has its own directory that contains the {@code labels} file (one label per line)
+   * and the {@code body} file.
+   */
+  static class PullRequestCache {
+    private static final String LABELS_FILE = "labels";
+    private static final String BODY_FILE = "body";
+
+    private final Path dir;
+
+    PullRequestCache(Path dir) {
+      this.dir = dir;
+    }
+
+    List<String> getLabels(String prNumber) throws IOException {
+      Path file = dir.resolve(prNumber).resolve(LABELS_FILE);
+      if (!Files.exists(file)) return null;
+      return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    String getBody(String prNumber) throws IOException {
+      Path file = dir.resolve(prNumber).resolve(BODY_FILE);
+      if (!Files.exists(file)) return null;
+      return Files.readString(file, StandardCharsets.UTF_8);
+    }
+
+    void putLabels(String prNumber, List<String> labels) throws IOException {
+      Files.createDirectories(dir.resolve(prNumber));
+      Files.write(dir.resolve(prNumber).resolve(LABELS_FILE), labels, StandardCharsets.UTF_8);
+    }
+
+    void putBody(String prNumber, String body) throws IOException {
+      Files.createDirectories(dir.resolve(prNumber));
+      Files.writeString(dir.resolve(prNumber).resolve(BODY_FILE), body, StandardCharsets.UTF_8);
+    }
+  }
 }
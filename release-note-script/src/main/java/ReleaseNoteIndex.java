@@ -0,0 +1,561 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * ReleaseNoteIndex manages a local index of the release note entries across releases. The release
+ * note bodies created by {@link ReleaseNoteCreation} are added to the index file, and then the
+ * entries can be looked up by a pull request number or a version range without accessing GitHub.
+ *
+ * <p>The index file is append-only. Each addition is written as a batch of the entries for a pair
+ * of a repository and a version in a compact binary format. A batch consists of the length and the
+ * CRC32 checksum of its payload followed by the payload, so a batch partially written by an
+ * interrupted addition is detected, ignored when the index is loaded, and truncated by the next
+ * addition. If the same pair is added again, the later batch supersedes the earlier one when the
+ * index is loaded.
+ *
+ * <p>Note that it is needed that java 11 to execute this script since it is executed as a
+ * Single-File Source-code program.
+ */
+@SuppressWarnings("DefaultPackage")
+public class ReleaseNoteIndex {
+
+  private static final String DEBUG = System.getenv("DEBUG");
+  private static final int MAGIC_NUMBER = 0x524e4958; // "RNIX"
+  private static final int FORMAT_VERSION = 2;
+  private static final int HEADER_SIZE = 8; // magic number and format version
+  private static final int BATCH_HEADER_SIZE = 8; // payload length and CRC32 checksum
+  private static final String SECTION_SUMMARY = "Summary";
+
+  private static final Pattern PATTERN_CATEGORY = Pattern.compile("^## *(\\p{Print}+) *$");
+  private static final Pattern PATTERN_RELEASE_NOTE_TEXT = Pattern.compile("^ *- *(\\p{Print}+)$");
+  private static final Pattern PATTERN_RELEASE_NOTE_TEXT_SPLIT_PRNUMBER =
+      Pattern.compile("(.*) +\\(((#[0-9]+ *)+)\\)$");
+
+  private final Path indexFile;
+
+  // key: version, value: the entries of the version for each repository (sorted by the name)
+  final NavigableMap<Version, Map<String, Release>> releases = new TreeMap<>();
+  // key: PR number, value: the entries containing the PR (including the same-as PRs)
+  final Map<Integer, List<Entry>> entriesByPrNumber = new HashMap<>();
+
+  public static void main(String... args) throws Exception {
+    if (!isValidArguments(args)) {
+      System.err.printf(
+          "Usage:%n"
+              + "    java %1$s.java add <indexFile> <repository> <version> [<releaseNoteFile>]%n"
+              + "    java %1$s.java pr <indexFile> <prNumber>%n"
+              + "    java %1$s.java range <indexFile> <fromVersion> <toVersion> [<category>]%n"
+              + "%nExample:%n"
+              + "    java ReleaseNoteCreation.java scalar-labs ScalarDB 4.0.0 scalardb"
+              + " | java %1$s.java add index.bin scalardb 4.0.0%n"
+              + "    java %1$s.java pr index.bin 1234%n"
+              + "    java %1$s.java range index.bin 3.9.0 4.0.0 backward-incompatible%n",
+          ReleaseNoteIndex.class.getSimpleName());
+      System.exit(1);
+    }
+
+    ReleaseNoteIndex index = new ReleaseNoteIndex(Paths.get(args[1]));
+    switch (args[0]) {
+      case "add":
+        try (BufferedReader br =
+            args.length == 5
+                ? Files.newBufferedReader(Paths.get(args[4]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+          index.add(args[2], args[3], br);
+        }
+        break;
+      case "pr":
+        index.load();
+        int prNumber = Integer.parseInt(args[2].replace("#", ""));
+        System.out.print(index.formatEntries(index.findByPrNumber(prNumber)));
+        break;
+      case "range":
+        index.load();
+        Category category = args.length == 5 ? Category.fromLabel(args[4]) : null;
+        System.out.print(index.formatCumulativeReleaseNote(args[2], args[3], category));
+        break;
+      default:
+        throw new AssertionError("Unexpected command: " + args[0]);
+    }
+  }
+
+  private static boolean isValidArguments(String... args) {
+    if (args.length < 3) return false;
+    switch (args[0]) {
+      case "add":
+        return args.length == 4 || args.length == 5;
+      case "pr":
+        return args.length == 3 && args[2].matches("^#?[0-9]+$");
+      case "range":
+        return args.length == 4 || args.length == 5;
+      default:
+        return false;
+    }
+  }
+
+  public ReleaseNoteIndex(Path indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Parses a release note body and appends its entries to the index file. The batch is written at
+   * once after the invalid bytes at the end of the file, if any, are truncated.
+   *
+   * @throws IllegalArgumentException if the version can't be parsed
+   */
+  public void add(String repository, String version, Reader releaseNoteBody) throws IOException {
+    // Reject an invalid version before writing it, since it would make the index file unloadable
+    Version.parse(version);
+    List<Entry> entries = parse(repository, version, new BufferedReader(releaseNoteBody));
+    byte[] payload = toPayload(repository, version, entries);
+
+    try (FileChannel channel =
+        FileChannel.open(
+            indexFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      // Exclude the other additions. The lock is released when the channel is closed
+      channel.lock();
+      // The stream isn't closed here since closing it closes the channel as well
+      long validLength =
+          readBatches(
+              new BufferedInputStream(Channels.newInputStream(channel.position(0))),
+              channel.size(),
+              null);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      if (validLength == 0) {
+        out.writeInt(MAGIC_NUMBER);
+        out.writeInt(FORMAT_VERSION);
+      }
+      out.writeInt(payload.length);
+      out.writeInt(checksum(payload));
+      out.write(payload);
+
+      channel.truncate(validLength);
+      channel.position(validLength);
+      ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+    System.err.printf("INFO: Added %d entries of %s %s%n", entries.size(), repository, version);
+  }
+
+  /** Loads all the batches in the index file into the in-memory lookup structures. */
+  public void load() throws IOException {
+    releases.clear();
+    entriesByPrNumber.clear();
+    if (!Files.exists(indexFile)) return;
+
+    List<byte[]> payloads = new ArrayList<>();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile))) {
+      readBatches(in, Files.size(indexFile), payloads);
+    }
+    for (byte[] payload : payloads) {
+      Release release = fromPayload(payload);
+      if (DEBUG != null) System.err.printf("Loaded: %s %s%n", release.repository, release.version);
+      releases
+          .computeIfAbsent(Version.parse(release.version), k -> new TreeMap<>())
+          .put(release.repository, release);
+    }
+
+    for (Map<String, Release> releasesInVersion : releases.values()) {
+      for (Release release : releasesInVersion.values()) {
+        for (List<Entry> entries : release.categoryMap.values()) {
+          for (Entry entry : entries) {
+            for (int prNumber : entry.prNumbers) {
+              entriesByPrNumber.computeIfAbsent(prNumber, k -> new ArrayList<>()).add(entry);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   Reads the batches from the beginning of the index file and returns the
+   length of the valid part of the file. The payloads of the batches are added
+   to the given list unless it's null. The trailing bytes that don't form a
+   complete batch with the correct checksum (e.g., the ones left by an
+   interrupted addition) are ignored.
+  */
+  private long readBatches(InputStream inputStream, long fileSize, List<byte[]> payloads)
+      throws IOException {
+    // A partially written header is regarded as an empty file
+    if (fileSize < HEADER_SIZE) return 0;
+
+    DataInputStream in = new DataInputStream(inputStream);
+    if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION)
+      throw new IllegalStateException("Unsupported index file: " + indexFile);
+
+    long validLength = HEADER_SIZE;
+    while (fileSize - validLength >= BATCH_HEADER_SIZE) {
+      int length = in.readInt();
+      int checksum = in.readInt();
+      if (length < 0 || length > fileSize - validLength - BATCH_HEADER_SIZE) break;
+      byte[] payload = new byte[length];
+      in.readFully(payload);
+      if (checksum(payload) != checksum) break;
+
+      if (payloads != null) payloads.add(payload);
+      validLength += BATCH_HEADER_SIZE + length;
+    }
+    if (validLength < fileSize) {
+      System.err.printf(
+          "WARN: Found %d invalid bytes at the end of the index file. Ignoring them.%n",
+          fileSize - validLength);
+    }
+    return validLength;
+  }
+
+  private byte[] toPayload(String repository, String version, List<Entry> entries)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, repository);
+    writeString(out, version);
+    out.writeInt(entries.size());
+    for (Entry entry : entries) {
+      out.writeByte(entry.category.ordinal());
+      writeString(out, entry.text);
+      out.writeInt(entry.prNumbers.size());
+      for (int prNumber : entry.prNumbers) {
+        out.writeInt(prNumber);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private Release fromPayload(byte[] payload) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    String repository = readString(in);
+    String version = readString(in);
+    Release release = new Release(repository, version);
+    int numberOfEntries = in.readInt();
+    for (int i = 0; i < numberOfEntries; i++) {
+      Category category = Category.values()[in.readUnsignedByte()];
+      String text = readString(in);
+      int numberOfPrNumbers = in.readInt();
+      List<Integer> prNumbers = new ArrayList<>(numberOfPrNumbers);
+      for (int j = 0; j < numberOfPrNumbers; j++) {
+        prNumbers.add(in.readInt());
+      }
+      release.add(new Entry(repository, version, category, text, prNumbers));
+    }
+    return release;
+  }
+
+  // DataOutputStream.writeUTF() can't write a string longer than 65535 bytes
+  private void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  /** Returns the entries containing the PR in the order of the versions. */
+  public List<Entry> findByPrNumber(int prNumber) {
+    return entriesByPrNumber.getOrDefault(prNumber, List.of()).stream()
+        .sorted(Comparator.comparing(entry -> Version.parse(entry.version)))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the entries of the versions in the range. The range excludes the from version and
+   * includes the to version, that is, it covers the changes for upgrading from the from version to
+   * the to version. If the category is null, the entries of all the categories are returned.
+   */
+  public List<Entry> findByVersionRange(String fromVersion, String toVersion, Category category) {
+    List<Entry> result = new ArrayList<>();
+    NavigableMap<Version, Map<String, Release>> releasesInRange =
+        releases.subMap(Version.parse(fromVersion), false, Version.parse(toVersion), true);
+    for (Map<String, Release> releasesInVersion : releasesInRange.values()) {
+      for (Release release : releasesInVersion.values()) {
+        Arrays.stream(Category.values())
+            .filter(c -> category == null || c == category)
+            .forEach(c -> result.addAll(release.categoryMap.getOrDefault(c, List.of())));
+      }
+    }
+    return result;
+  }
+
+  String formatEntries(List<Entry> entries) {
+    StringBuilder builder = new StringBuilder();
+    entries.forEach(
+        entry ->
+            builder.append(
+                String.format(
+                    "%s\t%s\t%s\t%s%n",
+                    entry.version,
+                    entry.repository,
+                    entry.category.getLabel(),
+                    formatReleaseNoteText(entry))));
+    return builder.toString();
+  }
+
+  String formatCumulativeReleaseNote(String fromVersion, String toVersion, Category category) {
+    List<Entry> entries = findByVersionRange(fromVersion, toVersion, category);
+    StringBuilder builder = new StringBuilder();
+    Arrays.stream(Category.values())
+        .forEach(
+            c -> {
+              List<Entry> entriesInCategory =
+                  entries.stream().filter(e -> e.category == c).collect(Collectors.toList());
+              if (entriesInCategory.isEmpty()) return;
+
+              builder.append(String.format("## %s%n", c.getDisplayName()));
+              String release = null;
+              for (Entry entry : entriesInCategory) {
+                String current = entry.repository + " " + entry.version;
+                if (!current.equals(release)) {
+                  builder.append(String.format("### %s%n", current));
+                  release = current;
+                }
+                builder.append(String.format("- %s%n", formatReleaseNoteText(entry)));
+              }
+              builder.append(System.lineSeparator());
+            });
+    return builder.toString();
+  }
+
+  private String formatReleaseNoteText(Entry entry) {
+    if (entry.prNumbers.isEmpty()) return entry.text;
+    return String.format(
+        "%s (%s)",
+        entry.text,
+        entry.prNumbers.stream().map(prNumber -> "#" + prNumber).collect(Collectors.joining(" ")));
+  }
+
+  private List<Entry> parse(String repository, String version, BufferedReader reader)
+      throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    Category category = null;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      Matcher categoryMatcher = PATTERN_CATEGORY.matcher(line);
+      if (categoryMatcher.matches()) {
+        if (!SECTION_SUMMARY.equalsIgnoreCase(categoryMatcher.group(1)))
+          category = Category.getByDisplayName(categoryMatcher.group(1));
+        continue;
+      }
+
+      Matcher releaseNoteTextMatcher = PATTERN_RELEASE_NOTE_TEXT.matcher(line);
+      if (!releaseNoteTextMatcher.matches()) continue;
+      if (category == null)
+        throw new IllegalStateException(
+            "Missing category. Release note text: " + releaseNoteTextMatcher.group(1));
+
+      String text = releaseNoteTextMatcher.group(1);
+      List<Integer> prNumbers = new ArrayList<>();
+      Matcher prNumberMatcher = PATTERN_RELEASE_NOTE_TEXT_SPLIT_PRNUMBER.matcher(text);
+      if (prNumberMatcher.matches()) {
+        text = prNumberMatcher.group(1);
+        for (String prNumber : prNumberMatcher.group(2).trim().split(" +")) {
+          prNumbers.add(Integer.parseInt(prNumber.substring(1)));
+        }
+      }
+      entries.add(new Entry(repository, version, category, text, prNumbers));
+    }
+    return entries;
+  }
+
+  enum Category {
+    BACKWARD_INCOMPATIBLE("Backward incompatible changes", "backward-incompatible"),
+    ENHANCEMENT("Enhancements", "enhancement"),
+    IMPROVEMENT("Improvements", "improvement"),
+    BUGFIX("Bug fixes", "bugfix"),
+    MISCELLANEOUS("Miscellaneous", "miscellaneous");
+
+    private final String displayName;
+    private final String label;
+
+    Category(String displayName, String label) {
+      this.displayName = displayName;
+      this.label = label;
+    }
+
+    public String getDisplayName() {
+      return this.displayName;
+    }
+
+    public String getLabel() {
+      return this.label;
+    }
+
+    public static Category getByDisplayName(String displayName) {
+      return Arrays.stream(Category.values())
+          .filter(v -> v.getDisplayName().equals(displayName))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Invalid displayName: " + displayName));
+    }
+
+    public static Category fromLabel(String label) {
+      return Arrays.stream(Category.values())
+          .filter(v -> v.getLabel().equalsIgnoreCase(label) || v.name().equalsIgnoreCase(label))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Invalid label: " + label));
+    }
+  }
+
+  static class Release {
+    final String repository;
+    final String version;
+    final Map<Category, List<Entry>> categoryMap = new EnumMap<>(Category.class);
+
+    Release(String repository, String version) {
+      this.repository = repository;
+      this.version = version;
+    }
+
+    void add(Entry entry) {
+      categoryMap.computeIfAbsent(entry.category, k -> new ArrayList<>()).add(entry);
+    }
+  }
+
+  static class Entry {
+    final String repository;
+    final String version;
+    final Category category;
+    final String text;
+    final List<Integer> prNumbers;
+
+    Entry(
+        String repository,
+        String version,
+        Category category,
+        String text,
+        List<Integer> prNumbers) {
+      this.repository = repository;
+      this.version = version;
+      this.category = category;
+      this.text = text;
+      this.prNumbers = prNumbers;
+    }
+  }
+
+  /**
+   * Version is a comparable form of a version string such as "3.9.1" or "4.0.0-rc1". The missing
+   * version units are regarded as 0, and a pre-release version (with a suffix after a dash) is
+   * older than the release version. The suffixes are compared by their numeric and alphabetic
+   * parts, so "rc9" is older than "rc10".
+   */
+  static class Version implements Comparable<Version> {
+    private static final Pattern SUFFIX_TOKEN = Pattern.compile("\\d+|[^\\d.]+");
+
+    private final int[] parts;
+    // Null for a release version. The numeric tokens don't have leading zeros
+    private final List<String> suffix;
+
+    private Version(int[] parts, List<String> suffix) {
+      this.parts = parts;
+      this.suffix = suffix;
+    }
+
+    static Version parse(String version) {
+      String numbers = version.startsWith("v") ? version.substring(1) : version;
+      List<String> suffix = null;
+      int index = numbers.indexOf("-");
+      if (index != -1) {
+        suffix = new ArrayList<>();
+        Matcher matcher = SUFFIX_TOKEN.matcher(numbers.substring(index + 1));
+        while (matcher.find()) {
+          suffix.add(matcher.group().replaceFirst("^0+(?=\\d)", ""));
+        }
+        numbers = numbers.substring(0, index);
+      }
+      try {
+        int[] parts = Arrays.stream(numbers.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        return new Version(parts, suffix);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid version: " + version, e);
+      }
+    }
+
+    @Override
+    public int compareTo(Version other) {
+      for (int i = 0; i < Math.max(parts.length, other.parts.length); i++) {
+        int part = i < parts.length ? parts[i] : 0;
+        int otherPart = i < other.parts.length ? other.parts[i] : 0;
+        if (part != otherPart) return Integer.compare(part, otherPart);
+      }
+      if (suffix == null) return other.suffix == null ? 0 : 1;
+      if (other.suffix == null) return -1;
+      for (int i = 0; i < Math.min(suffix.size(), other.suffix.size()); i++) {
+        int result = compareSuffixTokens(suffix.get(i), other.suffix.get(i));
+        if (result != 0) return result;
+      }
+      return Integer.compare(suffix.size(), other.suffix.size());
+    }
+
+    private static int compareSuffixTokens(String token, String otherToken) {
+      boolean numeric = Character.isDigit(token.charAt(0));
+      boolean otherNumeric = Character.isDigit(otherToken.charAt(0));
+      if (numeric && otherNumeric) {
+        // Compare the lengths first to avoid overflowing with long numbers
+        if (token.length() != otherToken.length()) {
+          return Integer.compare(token.length(), otherToken.length());
+        }
+      } else if (numeric != otherNumeric) {
+        return numeric ? -1 : 1;
+      }
+      return token.compareTo(otherToken);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Version && compareTo((Version) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      int length = parts.length;
+      while (length > 0 && parts[length - 1] == 0) length--;
+      return 31 * Arrays.hashCode(Arrays.copyOf(parts, length))
+          + (suffix == null ? 0 : suffix.hashCode());
+    }
+  }
+}
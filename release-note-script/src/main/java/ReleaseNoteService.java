@@ -0,0 +1,291 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * ReleaseNoteService is a long-running local service that creates release note bodies on demand. It
+ * keeps the project IDs, the pull request numbers of each project, and the metadata of merged pull
+ * requests in memory, so the second and later requests for the same data don't need to access
+ * GitHub. The service listens only on the loopback address and provides the following endpoints.
+ *
+ * <ul>
+ *   <li>GET /release-note?owner=&amp;projectTitlePrefix=&amp;version=&amp;repository= ... Creates a
+ *       release note body in the same way as {@link ReleaseNoteCreation}.
+ *   <li>GET /merged-release-note?dir= ... Creates a merged release note body from the release note
+ *       bodies in the directory in the same way as {@link MergeReleaseNotes}.
+ *   <li>POST /invalidate?owner=&amp;repository=&amp;pr= ... Invalidates the cached metadata of the
+ *       pull request and the cached pull request numbers of the projects of the repository. If
+ *       {@code pr} is omitted, all the cached pull requests of the repository are invalidated.
+ * </ul>
+ *
+ * <p>Unlike the other scripts, this service depends on {@link ReleaseNoteCreation} and {@link
+ * MergeReleaseNotes}, so it needs to be executed with the compiled classes (e.g., {@code java -cp
+ * build/classes/java/main ReleaseNoteService 8080}).
+ */
+@SuppressWarnings("DefaultPackage")
+public class ReleaseNoteService {
+
+  private static final int DEFAULT_PORT = 8080;
+  private static final int NUMBER_OF_THREADS = 4;
+
+  final MetadataCache cache = new MetadataCache();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public static void main(String... args) throws Exception {
+    if (args.length > 1 || (args.length == 1 && !args[0].matches("^[0-9]+$"))) {
+      System.err.printf(
+          "Usage:%n    java -cp build/classes/java/main %s [port]%n",
+          ReleaseNoteService.class.getSimpleName());
+      System.exit(1);
+    }
+
+    int port = args.length == 1 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    ReleaseNoteService service = new ReleaseNoteService();
+    service.start(port);
+    System.err.printf("INFO: Listening on port %d%n", service.getPort());
+  }
+
+  public void start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext(
+        "/release-note",
+        exchange ->
+            handle(
+                exchange,
+                "GET",
+                params ->
+                    createReleaseNote(
+                        getRequiredParam(params, "owner"),
+                        getRequiredParam(params, "projectTitlePrefix"),
+                        getRequiredParam(params, "version"),
+                        getRequiredParam(params, "repository"))));
+    server.createContext(
+        "/merged-release-note",
+        exchange ->
+            handle(
+                exchange,
+                "GET",
+                params -> createMergedReleaseNote(new File(getRequiredParam(params, "dir")))));
+    server.createContext(
+        "/invalidate",
+        exchange ->
+            handle(
+                exchange,
+                "POST",
+                params -> {
+                  invalidate(
+                      getRequiredParam(params, "owner"),
+                      getRequiredParam(params, "repository"),
+                      params.get("pr"));
+                  return "";
+                }));
+    executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  String createReleaseNote(
+      String owner, String projectTitlePrefix, String version, String repository) throws Exception {
+    CachingGitHubContext ghContext =
+        new CachingGitHubContext(cache, owner, projectTitlePrefix, version, repository);
+    return new ReleaseNoteCreation(ghContext).generateReleaseNote();
+  }
+
+  String createMergedReleaseNote(File dir) throws Exception {
+    return new MergeReleaseNotes().createMergedReleaseNote(dir);
+  }
+
+  void invalidate(String owner, String repository, String prNumber) {
+    System.err.printf(
+        "INFO: Invalidating the cache. repository:%s/%s pr:%s%n", owner, repository, prNumber);
+    cache.invalidate(owner, repository, prNumber);
+  }
+
+  private void handle(HttpExchange exchange, String method, RequestHandler handler)
+      throws IOException {
+    int status;
+    String response;
+    try {
+      if (!method.equals(exchange.getRequestMethod())) {
+        status = 405;
+        response = "Method not allowed: " + exchange.getRequestMethod();
+      } else {
+        response = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+        status = 200;
+      }
+    } catch (IllegalArgumentException e) {
+      status = 400;
+      response = e.getMessage();
+    } catch (Exception e) {
+      e.printStackTrace();
+      status = 500;
+      response = String.valueOf(e.getMessage());
+    }
+
+    byte[] body = response.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/markdown; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+  private Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> params = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) return params;
+    for (String param : rawQuery.split("&")) {
+      String[] keyAndValue = param.split("=", 2);
+      params.put(
+          URLDecoder.decode(keyAndValue[0], StandardCharsets.UTF_8),
+          keyAndValue.length == 2 ? URLDecoder.decode(keyAndValue[1], StandardCharsets.UTF_8) : "");
+    }
+    return params;
+  }
+
+  private String getRequiredParam(Map<String, String> params, String name) {
+    String value = params.get(name);
+    if (value == null || value.isEmpty())
+      throw new IllegalArgumentException("Missing parameter: " + name);
+    return value;
+  }
+
+  @FunctionalInterface
+  interface RequestHandler {
+    String handle(Map<String, String> params) throws Exception;
+  }
+
+  /** MetadataCache keeps the data retrieved from GitHub across requests. */
+  static class MetadataCache {
+    // key: owner/projectTitlePrefix/version, value: project ID
+    final Map<String, String> projectIds = new ConcurrentHashMap<>();
+    // key: owner/repository/projectId, value: pull request numbers in the project
+    final Map<String, List<String>> pullRequestNumbers = new ConcurrentHashMap<>();
+    // key: owner/repository/prNumber, value: metadata of the merged pull request
+    final Map<String, PullRequestMetadata> pullRequests = new ConcurrentHashMap<>();
+
+    void invalidate(String owner, String repository, String prNumber) {
+      String repositoryKey = owner + "/" + repository + "/";
+      // The project items can be changed by the event, so they are always invalidated
+      pullRequestNumbers.keySet().removeIf(key -> key.startsWith(repositoryKey));
+      if (prNumber == null) {
+        pullRequests.keySet().removeIf(key -> key.startsWith(repositoryKey));
+      } else {
+        pullRequests.remove(repositoryKey + prNumber);
+      }
+    }
+  }
+
+  static class PullRequestMetadata {
+    final ReleaseNoteCreation.Category category;
+    final String body;
+
+    PullRequestMetadata(ReleaseNoteCreation.Category category, String body) {
+      this.category = category;
+      this.body = body;
+    }
+  }
+
+  /**
+   * CachingGitHubContext looks up the data in the {@link MetadataCache} first and retrieves only
+   * the data that has not been cached from GitHub in the same way as {@link
+   * ReleaseNoteCreation.GitHubContext}. The metadata of a pull request is cached only after the
+   * pull request has been merged since that of the open ones can be changed before they are merged.
+   */
+  static class CachingGitHubContext extends ReleaseNoteCreation.GitHubContext {
+
+    private final MetadataCache cache;
+    private final String projectKey;
+    private final String repositoryKey;
+
+    CachingGitHubContext(
+        MetadataCache cache,
+        String owner,
+        String projectTitlePrefix,
+        String version,
+        String repository) {
+      super(owner, projectTitlePrefix, version, repository);
+      this.cache = cache;
+      this.projectKey = owner + "/" + projectTitlePrefix + "/" + version;
+      this.repositoryKey = owner + "/" + repository + "/";
+    }
+
+    @Override
+    String getProjectId() throws Exception {
+      String projectId = cache.projectIds.get(projectKey);
+      if (projectId == null) {
+        projectId = super.getProjectId();
+        cache.projectIds.put(projectKey, projectId);
+      }
+      return projectId;
+    }
+
+    @Override
+    List<String> getPullRequestNumbers(String projectId) throws Exception {
+      List<String> prNumbers = cache.pullRequestNumbers.get(repositoryKey + projectId);
+      if (prNumbers == null) {
+        prNumbers = List.copyOf(super.getPullRequestNumbers(projectId));
+        cache.pullRequestNumbers.put(repositoryKey + projectId, prNumbers);
+      }
+      return prNumbers;
+    }
+
+    @Override
+    boolean isPullRequestMerged(String prNumber) throws Exception {
+      if (cache.pullRequests.containsKey(repositoryKey + prNumber)) return true;
+      return super.isPullRequestMerged(prNumber);
+    }
+
+    @Override
+    ReleaseNoteCreation.Category getCategoryFromPullRequest(String prNumber) throws Exception {
+      return getPullRequestMetadata(prNumber).category;
+    }
+
+    @Override
+    BufferedReader getPullRequestBody(String prNumber) throws Exception {
+      return new BufferedReader(new StringReader(getPullRequestMetadata(prNumber).body));
+    }
+
+    /*
+     This is called only after the pull request is confirmed to be merged
+     in ReleaseNoteCreation.extractReleaseNoteInfo(). The super methods throw
+     an exception if the gh command fails, so a failure is never cached.
+    */
+    private PullRequestMetadata getPullRequestMetadata(String prNumber) throws Exception {
+      PullRequestMetadata metadata = cache.pullRequests.get(repositoryKey + prNumber);
+      if (metadata == null) {
+        String body;
+        try (BufferedReader br = super.getPullRequestBody(prNumber)) {
+          body = br.lines().collect(Collectors.joining(System.lineSeparator()));
+        }
+        metadata = new PullRequestMetadata(super.getCategoryFromPullRequest(prNumber), body);
+        cache.pullRequests.put(repositoryKey + prNumber, metadata);
+      }
+      return metadata;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class BackportBranchPlannerTest {
+
+  @ParameterizedTest
+  @MethodSource
+  void convertVersionToBranch_version_returnCorrectBranch(String version, String branch) {
+    // Arrange
+    BackportBranchPlanner sut =
+        new BackportBranchPlanner(
+            mock(BackportBranchPlanner.GitHubContext.class), "ScalarDB", "master");
+
+    // Act
+    String actual = sut.convertVersionToBranch(version);
+
+    // Assert
+    assertThat(actual).isEqualTo(branch);
+  }
+
+  @Test
+  void plan_multiplePullRequests_returnBranchesForEachPullRequest() throws Exception {
+    // Arrange
+    BackportBranchPlanner.GitHubContext ghContextMock =
+        mock(BackportBranchPlanner.GitHubContext.class);
+    when(ghContextMock.getProjectTitles(List.of("1", "2", "3")))
+        .thenReturn(
+            Map.of(
+                "1",
+                List.of("ScalarDB 3.7.1", "ScalarDB 3.8.0", "ScalarDB 4.0.0"),
+                "2",
+                List.of("ScalarDB 3.7.2", "ScalarDB 3.7.1", "ScalarDB GraphQL 3.7.1"),
+                "3",
+                List.of("ScalarDL 3.7.1")));
+    BackportBranchPlanner sut = new BackportBranchPlanner(ghContextMock, "ScalarDB", "master");
+
+    // Act
+    Map<String, Set<String>> branchesMap = sut.plan(List.of("1", "2", "3", "2"));
+
+    // Assert
+    assertThat(branchesMap).containsOnlyKeys("1", "2", "3");
+    assertThat(branchesMap.get("1")).containsExactly("3.7", "3", "master");
+    assertThat(branchesMap.get("2")).containsExactly("3.7");
+    assertThat(branchesMap.get("3")).isEmpty();
+  }
+
+  @Test
+  void plan_manyPullRequests_fetchProjectTitlesInBatches() throws Exception {
+    // Arrange
+    BackportBranchPlanner.GitHubContext ghContextMock =
+        mock(BackportBranchPlanner.GitHubContext.class);
+    when(ghContextMock.getProjectTitles(anyList()))
+        .thenAnswer(
+            invocation ->
+                invocation.<List<String>>getArgument(0).stream()
+                    .collect(Collectors.toMap(prNumber -> prNumber, prNumber -> List.of())));
+    BackportBranchPlanner sut = new BackportBranchPlanner(ghContextMock, "ScalarDB", "master");
+    List<String> prNumbers =
+        IntStream.rangeClosed(1, 120).mapToObj(String::valueOf).collect(Collectors.toList());
+
+    // Act
+    Map<String, Set<String>> branchesMap = sut.plan(prNumbers);
+
+    // Assert
+    assertThat(branchesMap).hasSize(120);
+    verify(ghContextMock, times(3)).getProjectTitles(anyList());
+  }
+
+  @Test
+  void plan_unresolvedPullRequest_skipOnlyThePullRequest() throws Exception {
+    // Arrange
+    BackportBranchPlanner.GitHubContext ghContextMock =
+        mock(BackportBranchPlanner.GitHubContext.class);
+    when(ghContextMock.getProjectTitles(List.of("1", "99999", "3")))
+        .thenReturn(Map.of("1", List.of("ScalarDB 3.7.1"), "3", List.of()));
+    BackportBranchPlanner sut = new BackportBranchPlanner(ghContextMock, "ScalarDB", "master");
+
+    // Act
+    Map<String, Set<String>> branchesMap = sut.plan(List.of("1", "99999", "3"));
+
+    // Assert
+    assertThat(branchesMap).containsOnlyKeys("1", "3");
+    assertThat(branchesMap.get("1")).containsExactly("3.7");
+    assertThat(branchesMap.get("3")).isEmpty();
+  }
+
+  @Test
+  void getProjectTitles_oneAliasResolvedToNull_returnTitlesOfOtherPullRequests() throws Exception {
+    // Arrange
+    BackportBranchPlanner.GitHubContext sut =
+        spy(new BackportBranchPlanner.GitHubContext("owner", "repo"));
+    String response =
+        "{\"data\":{\"repository\":{"
+            + "\"pr1\":{\"projectsV2\":{\"nodes\":[{\"title\":\"ScalarDB 3.7.1\"},"
+            + "{\"title\":\"ScalarDB 4.0.0\"}]}},"
+            + "\"pr99999\":null,"
+            + "\"pr3\":{\"projectsV2\":{\"nodes\":[]}}}},"
+            + "\"errors\":[{\"type\":\"NOT_FOUND\",\"path\":[\"repository\",\"pr99999\"],"
+            + "\"message\":\"Could not resolve to a PullRequest with the number of 99999.\"}]}";
+    doReturn(response)
+        .when(sut)
+        .runSubProcessAndGetOutput(
+            argThat(command -> command.get(0).equals("gh")), any(), eq(false));
+
+    // Act
+    Map<String, List<String>> projectTitles = sut.getProjectTitles(List.of("1", "99999", "3"));
+
+    // Assert
+    assertThat(projectTitles).containsOnlyKeys("1", "3");
+    assertThat(projectTitles.get("1")).containsExactly("ScalarDB 3.7.1", "ScalarDB 4.0.0");
+    assertThat(projectTitles.get("3")).isEmpty();
+  }
+
+  @Test
+  void plan_invalidPullRequestNumber_throwIllegalArgumentException() {
+    // Arrange
+    BackportBranchPlanner sut =
+        new BackportBranchPlanner(
+            mock(BackportBranchPlanner.GitHubContext.class), "ScalarDB", "master");
+
+    // Act Assert
+    assertThatThrownBy(() -> sut.plan(List.of("1) { id }")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void buildQuery_multiplePullRequests_containAliasForEachPullRequest() {
+    // Arrange
+    BackportBranchPlanner.GitHubContext sut =
+        new BackportBranchPlanner.GitHubContext("owner", "repo");
+
+    // Act
+    String query = sut.buildQuery(List.of("1", "2"));
+
+    // Assert
+    assertThat(query)
+        .contains("pr1: pullRequest(number: 1) {")
+        .contains("pr2: pullRequest(number: 2) {");
+  }
+
+  static Stream<Arguments> convertVersionToBranch_version_returnCorrectBranch() {
+    return Stream.of(
+        arguments("3.7.1", "3.7"),
+        arguments("3.10.12", "3.10"),
+        arguments("3.8.0", "3"),
+        arguments("4.0.0", "master"));
+  }
+}
@@ -0,0 +1,217 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BackportPullRequestCreationTest {
+
+  @TempDir Path tempDir;
+
+  private File origin;
+  private File clone;
+  private String commitSha;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // Prepare a bare repository as the remote, which has the following branches
+    // - main: has the commit to be backported
+    // - 3, 3.7: can cherry-pick the commit without conflicts
+    // - 3.6: conflicts with the commit
+    origin = tempDir.resolve("origin.git").toFile();
+    git(tempDir.toFile(), "init", "--bare", "-b", "main", origin.getPath());
+
+    File seed = tempDir.resolve("seed").toFile();
+    git(tempDir.toFile(), "clone", origin.getPath(), seed.getPath());
+    writeFile(seed, "a.txt", "base\n");
+    git(seed, "add", "a.txt");
+    commit(seed, "Initial commit");
+    git(seed, "branch", "3");
+    git(seed, "branch", "3.7");
+    git(seed, "checkout", "-b", "3.6");
+    writeFile(seed, "a.txt", "conflicted\n");
+    commit(seed, "Conflicted change");
+    git(seed, "checkout", "main");
+    writeFile(seed, "a.txt", "backported\n");
+    commit(seed, "Fix a bug (#1)");
+    commitSha = git(seed, "rev-parse", "HEAD");
+    git(seed, "push", "origin", "main", "3", "3.7", "3.6");
+
+    clone = tempDir.resolve("clone").toFile();
+    git(tempDir.toFile(), "clone", origin.getPath(), clone.getPath());
+  }
+
+  @Test
+  void createPullRequests_noConflict_pushBranchesAndCreatePullRequests() throws Exception {
+    // Arrange
+    BackportPullRequestCreation.GitHubContext ghContextMock =
+        mock(BackportPullRequestCreation.GitHubContext.class);
+    BackportPullRequestCreation sut = createSut(ghContextMock);
+
+    // Act
+    sut.createPullRequests(List.of("3", "3.7"));
+
+    // Assert
+    assertThat(git(origin, "show", "3-pull-1:a.txt")).isEqualTo("backported");
+    assertThat(git(origin, "show", "3.7-pull-1:a.txt")).isEqualTo("backported");
+    verify(ghContextMock)
+        .createPullRequest(
+            eq("3"),
+            eq("3-pull-1"),
+            eq("Backport to branch(3) : Fix a bug"),
+            contains("This is an automated backport"),
+            eq(false));
+    verify(ghContextMock)
+        .createPullRequest(
+            eq("3.7"),
+            eq("3.7-pull-1"),
+            eq("Backport to branch(3.7) : Fix a bug"),
+            contains("This is an automated backport"),
+            eq(false));
+    verify(ghContextMock, never()).createIssue(anyString(), anyString());
+    assertThat(git(clone, "worktree", "list").lines()).hasSize(1);
+  }
+
+  @Test
+  void createPullRequests_conflict_pushEmptyCommitAndCreateDraftPullRequest() throws Exception {
+    // Arrange
+    BackportPullRequestCreation.GitHubContext ghContextMock =
+        mock(BackportPullRequestCreation.GitHubContext.class);
+    BackportPullRequestCreation sut = createSut(ghContextMock);
+
+    // Act
+    sut.createPullRequests(List.of("3.6", "3.7"));
+
+    // Assert
+    assertThat(git(origin, "show", "3.6-pull-1:a.txt")).isEqualTo("conflicted");
+    assertThat(git(origin, "log", "-1", "--format=%s", "3.6-pull-1"))
+        .isEqualTo("Empty commit [skip ci]");
+    assertThat(git(origin, "show", "3.7-pull-1:a.txt")).isEqualTo("backported");
+    verify(ghContextMock)
+        .createPullRequest(
+            eq("3.6"),
+            eq("3.6-pull-1"),
+            eq("Backport to branch(3.6) : Fix a bug"),
+            contains("git checkout 3.6-pull-1"),
+            eq(true));
+    verify(ghContextMock)
+        .createPullRequest(
+            eq("3.7"),
+            eq("3.7-pull-1"),
+            eq("Backport to branch(3.7) : Fix a bug"),
+            contains("This is an automated backport"),
+            eq(false));
+    verify(ghContextMock, never()).createIssue(anyString(), anyString());
+    assertThat(git(clone, "worktree", "list").lines()).hasSize(1);
+  }
+
+  @Test
+  void createPullRequests_nonExistentBranch_createIssue() throws Exception {
+    // Arrange
+    BackportPullRequestCreation.GitHubContext ghContextMock =
+        mock(BackportPullRequestCreation.GitHubContext.class);
+    BackportPullRequestCreation sut = createSut(ghContextMock);
+
+    // Act
+    sut.createPullRequests(List.of("2.0", "3"));
+
+    // Assert
+    assertThat(git(origin, "show", "3-pull-1:a.txt")).isEqualTo("backported");
+    verify(ghContextMock)
+        .createIssue(eq("Backport to branch(2.0) failed: Fix a bug"), contains(commitSha));
+    verify(ghContextMock)
+        .createPullRequest(
+            eq("3"),
+            eq("3-pull-1"),
+            eq("Backport to branch(3) : Fix a bug"),
+            contains("This is an automated backport"),
+            eq(false));
+  }
+
+  @Test
+  void createPullRequests_failedToCreatePullRequest_createIssue() throws Exception {
+    // Arrange
+    BackportPullRequestCreation.GitHubContext ghContextMock =
+        mock(BackportPullRequestCreation.GitHubContext.class);
+    doThrow(new RuntimeException("failed"))
+        .when(ghContextMock)
+        .createPullRequest(eq("3"), anyString(), anyString(), anyString(), eq(false));
+    BackportPullRequestCreation sut = createSut(ghContextMock);
+
+    // Act
+    sut.createPullRequests(List.of("3"));
+
+    // Assert
+    verify(ghContextMock)
+        .createIssue(eq("Backport to branch(3) failed: Fix a bug"), contains(commitSha));
+  }
+
+  @Test
+  void createPullRequests_failedToRemoveWorktree_pruneWorktreeForNextRun() throws Exception {
+    // Arrange
+    BackportPullRequestCreation.GitContext gitContext =
+        spy(new BackportPullRequestCreation.GitContext(clone));
+    doThrow(new RuntimeException("failed")).when(gitContext).removeWorktree(any());
+    BackportPullRequestCreation.GitHubContext ghContextMock =
+        mock(BackportPullRequestCreation.GitHubContext.class);
+    createSut(gitContext, ghContextMock).createPullRequests(List.of("3"));
+
+    // Act
+    createSut(gitContext, ghContextMock).createPullRequests(List.of("3"));
+
+    // Assert
+    assertThat(git(clone, "worktree", "list").lines()).hasSize(1);
+    verify(ghContextMock, times(2))
+        .createPullRequest(
+            eq("3"),
+            eq("3-pull-1"),
+            eq("Backport to branch(3) : Fix a bug"),
+            contains("This is an automated backport"),
+            eq(false));
+    verify(ghContextMock, never()).createIssue(anyString(), anyString());
+  }
+
+  BackportPullRequestCreation createSut(BackportPullRequestCreation.GitHubContext ghContext) {
+    return createSut(new BackportPullRequestCreation.GitContext(clone), ghContext);
+  }
+
+  BackportPullRequestCreation createSut(
+      BackportPullRequestCreation.GitContext gitContext,
+      BackportPullRequestCreation.GitHubContext ghContext) {
+    return new BackportPullRequestCreation(
+        gitContext, ghContext, "1", "https://github.com/owner/repo/pull/1", "Fix a bug", commitSha);
+  }
+
+  void commit(File dir, String message) throws Exception {
+    git(dir, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-am", message);
+  }
+
+  void writeFile(File dir, String fileName, String content) throws Exception {
+    Files.writeString(dir.toPath().resolve(fileName), content, StandardCharsets.UTF_8);
+  }
+
+  String git(File dir, String... args) throws Exception {
+    String[] command = new String[args.length + 1];
+    command[0] = "git";
+    System.arraycopy(args, 0, command, 1, args.length);
+    Process p = new ProcessBuilder(command).directory(dir).redirectErrorStream(true).start();
+    String output = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertThat(p.waitFor()).as(output).isEqualTo(0);
+    return output.trim();
+  }
+}
@@ -0,0 +1,121 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class LatestReleaseFinderTest {
+
+  private static final List<String> RELEASES =
+      List.of(
+          "v3.10.10",
+          "v3.10.1",
+          "v3.9.10",
+          "v3.9.9",
+          "v3.9.0-rc1",
+          "v3.8.12",
+          "v3.8.11",
+          "v3.1.5",
+          "v4.0.0-beta",
+          "v4.0.0");
+
+  @ParameterizedTest
+  @MethodSource
+  void findLatestRelease_releasePattern_returnLatestRelease(
+      String releasePattern, String expected) {
+    // Arrange
+    LatestReleaseFinder sut = new LatestReleaseFinder(RELEASES);
+
+    // Act
+    String actual = sut.findLatestRelease(releasePattern);
+
+    // Assert
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @Test
+  void findLatestReleases_multipleReleasePatterns_returnLatestReleaseForEachPattern() {
+    // Arrange
+    LatestReleaseFinder sut = new LatestReleaseFinder(RELEASES);
+
+    // Act
+    Map<String, String> actual = sut.findLatestReleases(List.of("v3.9", "v4", "v5", "v3.8"));
+
+    // Assert
+    assertThat(actual)
+        .containsExactly(
+            Map.entry("v3.9", "v3.9.10"), Map.entry("v4", "v4.0.0"), Map.entry("v3.8", "v3.8.12"));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void findLatestRelease_releasePatternContainingDigits_returnLatestRelease(
+      String releasePattern, String expected) {
+    // Arrange
+    LatestReleaseFinder sut =
+        new LatestReleaseFinder(
+            List.of(
+                "scalardb-k8s-1.3.1",
+                "scalardb-k8s-1.10.0",
+                "scalardb-k8s-10.0.0",
+                "scalardb-k8s-2.0.0"));
+
+    // Act
+    String actual = sut.findLatestRelease(releasePattern);
+
+    // Assert
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @Test
+  void findLatestRelease_invalidReleaseNotMatchingPattern_notWarned() {
+    // Arrange
+    LatestReleaseFinder sut = new LatestReleaseFinder(RELEASES);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(); // Capture the standard error
+    PrintStream originalErr = System.err;
+    System.setErr(new PrintStream(baos, true, StandardCharsets.UTF_8));
+
+    // Act
+    try {
+      sut.findLatestRelease("v3.8");
+      sut.findLatestRelease("v4");
+    } finally {
+      System.setErr(originalErr);
+    }
+
+    // Assert
+    assertThat(baos.toString(StandardCharsets.UTF_8))
+        .isEqualTo(String.format("Found invalid version unit '.0.0-beta'. Skipping it.%n"));
+  }
+
+  static Stream<Arguments> findLatestRelease_releasePattern_returnLatestRelease() {
+    return Stream.of(
+        arguments("v3", "v3.10.10"),
+        arguments("v3.9", "v3.9.10"),
+        arguments("v3.9.", "v3.9.10"),
+        arguments("v3.9.9", "v3.9.9"),
+        arguments("v3.1", "v3.1.5"),
+        arguments("v4", "v4.0.0"),
+        arguments("v", "v4.0.0"),
+        arguments("v3.7", null),
+        arguments("v3.9.x", null),
+        arguments("x3", null),
+        arguments("v3.9.0", null));
+  }
+
+  static Stream<Arguments> findLatestRelease_releasePatternContainingDigits_returnLatestRelease() {
+    return Stream.of(
+        arguments("scalardb-k8s-1", "scalardb-k8s-1.10.0"),
+        arguments("scalardb-k8s-1.3", "scalardb-k8s-1.3.1"),
+        arguments("scalardb-k8s-", "scalardb-k8s-10.0.0"),
+        arguments("scalardb-k8s-3", null));
+  }
+}
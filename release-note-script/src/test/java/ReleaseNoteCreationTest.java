@@ -1,8 +1,12 @@
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 import java.io.BufferedReader;
@@ -10,10 +14,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -235,6 +242,143 @@ public class ReleaseNoteCreationTest {
     assertThat(stdout).isEqualTo(expected);
   }
 
+  @Test
+  void extractPullRequestNumbers_mergeAndSquashMergeCommits_returnPullRequestNumbersInOrder()
+      throws Exception {
+    // Arrange
+    ReleaseNoteCreation.LocalGitContext sut =
+        new ReleaseNoteCreation.LocalGitContext("owner", "repo", "v1.0.0", "v1.0.1", null);
+    String commitSubjects =
+        "Add a feature (#10)\n"
+            + "Merge pull request #11 from owner/branch\n"
+            + "Bump a library version\n"
+            + "Backport to branch(1.0) : Fix a bug (#12)\n"
+            + "Revert \"Add a feature (#10)\" (#13)\n"
+            + "Add a feature (#10)\n";
+
+    // Act
+    List<String> prNumbers =
+        sut.extractPullRequestNumbers(new BufferedReader(new StringReader(commitSubjects)));
+
+    // Assert
+    assertThat(prNumbers).containsExactly("10", "11", "12", "13");
+  }
+
+  @Test
+  void pullRequestCache_putAndGet_returnRecordedLabelsAndBody(@TempDir Path dir) throws Exception {
+    // Arrange
+    ReleaseNoteCreation.PullRequestCache sut = new ReleaseNoteCreation.PullRequestCache(dir);
+
+    // Act
+    sut.putLabels("1", List.of("enhancement", "dependencies"));
+    sut.putBody("1", "## Release notes\nA release note text.");
+
+    // Assert
+    assertThat(sut.getLabels("1")).containsExactly("enhancement", "dependencies");
+    assertThat(sut.getBody("1")).isEqualTo("## Release notes\nA release note text.");
+    assertThat(sut.getLabels("2")).isNull();
+    assertThat(sut.getBody("2")).isNull();
+  }
+
+  @Test
+  void generateReleaseNote_commitRangeWithCachedPullRequests_returnReleaseNoteWithoutGitHub(
+      @TempDir Path dir) throws Exception {
+    // Arrange
+    ReleaseNoteCreation.PullRequestCache cache = new ReleaseNoteCreation.PullRequestCache(dir);
+    cache.putLabels("10", List.of("enhancement"));
+    cache.putBody("10", "## Description\nfoo\n\n## Release notes\n- Add a feature.\n");
+    cache.putLabels("11", List.of("bugfix"));
+    cache.putBody("11", "## Release notes\nFix a bug.\n");
+    cache.putLabels("12", List.of("enhancement"));
+    cache.putBody("12", "## Release notes\nSame as #10\n");
+    cache.putLabels("13", List.of());
+    cache.putBody("13", "## Release notes\nN/A\n");
+
+    ReleaseNoteCreation.LocalGitContext ghContext =
+        spy(new ReleaseNoteCreation.LocalGitContext("owner", "repo", "v1.0.0", "v1.0.1", cache));
+    doThrow(new AssertionError("GitHub must not be accessed"))
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(anyString());
+    doReturn(
+            new BufferedReader(
+                new StringReader(
+                    "Add a feature (#10)\n"
+                        + "Merge pull request #11 from owner/branch\n"
+                        + "Follow up the feature (#12)\n"
+                        + "Bump a library version (#13)\n")))
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(
+            List.of("git", "log", "--first-parent", "--reverse", "--format=%s", "c1..c2"));
+    stubRevParse(ghContext, "v1.0.0", "c1");
+    stubRevParse(ghContext, "v1.0.1", "c2");
+    ReleaseNoteCreation sut = new ReleaseNoteCreation(ghContext);
+
+    // Act
+    String releaseNote = sut.generateReleaseNote();
+
+    // Assert
+    assertThat(releaseNote)
+        .isEqualTo(
+            "## Summary\n\n"
+                + "## Enhancements\n"
+                + "- Add a feature. (#10 #12)\n\n"
+                + "## Bug fixes\n"
+                + "- Fix a bug. (#11)\n\n");
+  }
+
+  @Test
+  void generateReleaseNote_commitRangeAndGitHubCallFailed_notCachedAndReportedAsFailed(
+      @TempDir Path dir) throws Exception {
+    // Arrange
+    ReleaseNoteCreation.PullRequestCache cache = new ReleaseNoteCreation.PullRequestCache(dir);
+    ReleaseNoteCreation.LocalGitContext ghContext =
+        spy(new ReleaseNoteCreation.LocalGitContext("owner", "repo", "v1.0.0", "v1.0.1", cache));
+    doThrow(new RuntimeException("Command failed with exit code 1."))
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(anyString());
+    doReturn(new BufferedReader(new StringReader("Add a feature (#5)\n")))
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(
+            List.of("git", "log", "--first-parent", "--reverse", "--format=%s", "c1..c2"));
+    stubRevParse(ghContext, "v1.0.0", "c1");
+    stubRevParse(ghContext, "v1.0.1", "c2");
+    ReleaseNoteCreation sut = new ReleaseNoteCreation(ghContext);
+
+    // Act
+    String releaseNote = sut.generateReleaseNote();
+
+    // Assert
+    assertThat(releaseNote).isEqualTo("## Summary\n\n");
+    assertThat(sut.failedPrNumbers).containsExactly("5");
+    try (Stream<Path> files = Files.list(dir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void runSubProcessAndGetOutputAsReader_commandInPipelineFailed_throwException() {
+    // Arrange
+    ReleaseNoteCreation.GitHubContext sut =
+        new ReleaseNoteCreation.GitHubContext("owner", "ScalarDB", "4.0.0", "repo");
+
+    // Act Assert
+    assertThatThrownBy(() -> sut.runSubProcessAndGetOutputAsReader("false | cat"))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("exit code 1");
+  }
+
+  @Test
+  void getTargetPullRequestNumbers_nonExistentRef_throwIllegalArgumentException() {
+    // Arrange
+    ReleaseNoteCreation.LocalGitContext sut =
+        new ReleaseNoteCreation.LocalGitContext("owner", "repo", "no-such-ref", "HEAD", null);
+
+    // Act Assert
+    assertThatThrownBy(sut::getTargetPullRequestNumbers)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Couldn't resolve the ref: no-such-ref");
+  }
+
   static Stream<Arguments> extractReleaseNoteInfo_normalText_addedCorrectCategory() {
     return Stream.of(
         arguments(
@@ -247,6 +391,14 @@ public class ReleaseNoteCreationTest {
             ReleaseNoteCreation.Category.MISCELLANEOUS, "a release note text in miscellaneous"));
   }
 
+  void stubRevParse(ReleaseNoteCreation.LocalGitContext ghContext, String ref, String commit)
+      throws Exception {
+    doReturn(new BufferedReader(new StringReader(commit)))
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(
+            List.of("git", "rev-parse", "--verify", ref + "^{commit}"));
+  }
+
   ReleaseNoteCreation.GitHubContext mockedGhContext(
       ReleaseNoteCreation.Category category, String rnText) throws Exception {
     ReleaseNoteCreation.GitHubContext ghContextMock = mock(ReleaseNoteCreation.GitHubContext.class);
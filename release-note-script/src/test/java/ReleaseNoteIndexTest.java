@@ -0,0 +1,246 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReleaseNoteIndexTest {
+
+  private static final String RELEASE_NOTE_3_9_0 =
+      "## Summary\n\n"
+          + "## Backward incompatible changes\n"
+          + "- A backward-incompatible text in 3.9.0. (#10)\n\n"
+          + "## Enhancements\n"
+          + "- A topic pull request. Additional comment. (#11 #12)\n\n";
+  private static final String RELEASE_NOTE_4_0_0 =
+      "## Summary\n\n"
+          + "## Backward incompatible changes\n"
+          + "- A backward-incompatible text in 4.0.0. (#20)\n\n"
+          + "## Bug fixes\n"
+          + "- A bugfix text. (#12)\n\n";
+
+  @TempDir Path tempDir;
+
+  private Path indexFile;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    indexFile = tempDir.resolve("index.bin");
+    ReleaseNoteIndex index = new ReleaseNoteIndex(indexFile);
+    index.add("scalardb", "3.9.0", new StringReader(RELEASE_NOTE_3_9_0));
+    index.add("scalardb", "4.0.0", new StringReader(RELEASE_NOTE_4_0_0));
+  }
+
+  @Test
+  void findByPrNumber_sameAsPullRequest_returnEntriesOfAllReleases() throws Exception {
+    // Arrange
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+    sut.load();
+
+    // Act
+    List<ReleaseNoteIndex.Entry> entries = sut.findByPrNumber(12);
+
+    // Assert
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0).version).isEqualTo("3.9.0");
+    assertThat(entries.get(0).category).isEqualTo(ReleaseNoteIndex.Category.ENHANCEMENT);
+    assertThat(entries.get(0).text).isEqualTo("A topic pull request. Additional comment.");
+    assertThat(entries.get(0).prNumbers).containsExactly(11, 12);
+    assertThat(entries.get(1).version).isEqualTo("4.0.0");
+    assertThat(entries.get(1).category).isEqualTo(ReleaseNoteIndex.Category.BUGFIX);
+    assertThat(sut.findByPrNumber(99)).isEmpty();
+  }
+
+  @Test
+  void findByVersionRange_category_returnEntriesOfVersionsInRange() throws Exception {
+    // Arrange
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+    sut.load();
+
+    // Act
+    List<ReleaseNoteIndex.Entry> all =
+        sut.findByVersionRange("3.8", "4.0", ReleaseNoteIndex.Category.BACKWARD_INCOMPATIBLE);
+    List<ReleaseNoteIndex.Entry> upgrade =
+        sut.findByVersionRange("3.9.0", "4.0.0", ReleaseNoteIndex.Category.BACKWARD_INCOMPATIBLE);
+
+    // Assert
+    assertThat(all.stream().map(e -> e.text).collect(Collectors.toList()))
+        .containsExactly(
+            "A backward-incompatible text in 3.9.0.", "A backward-incompatible text in 4.0.0.");
+    assertThat(upgrade.stream().map(e -> e.text).collect(Collectors.toList()))
+        .containsExactly("A backward-incompatible text in 4.0.0.");
+  }
+
+  @Test
+  void findByPrNumber_preReleasesWithMultiDigitNumber_returnEntriesInNumericOrder()
+      throws Exception {
+    // Arrange
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+    for (String version : List.of("4.1.0-rc10", "4.1.0", "4.1.0-rc9", "4.1.0-beta2")) {
+      sut.add(
+          "scalardb",
+          version,
+          new StringReader("## Summary\n\n## Bug fixes\n- A bugfix in " + version + ". (#40)\n"));
+    }
+    sut.load();
+
+    // Act
+    List<ReleaseNoteIndex.Entry> entries = sut.findByPrNumber(40);
+
+    // Assert
+    assertThat(entries.stream().map(e -> e.version).collect(Collectors.toList()))
+        .containsExactly("4.1.0-beta2", "4.1.0-rc9", "4.1.0-rc10", "4.1.0");
+    assertThat(
+            sut
+                .findByVersionRange("4.1.0-rc9", "4.1.0-rc10", ReleaseNoteIndex.Category.BUGFIX)
+                .stream()
+                .map(e -> e.version)
+                .collect(Collectors.toList()))
+        .containsExactly("4.1.0-rc10");
+  }
+
+  @Test
+  void load_sameReleaseAddedAgain_laterBatchSupersedesEarlierOne() throws Exception {
+    // Arrange
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+    sut.add(
+        "scalardb",
+        "4.0.0",
+        new StringReader("## Summary\n\n## Bug fixes\n- A revised bugfix text. (#21)\n"));
+
+    // Act
+    sut.load();
+
+    // Assert
+    assertThat(sut.findByPrNumber(20)).isEmpty();
+    assertThat(sut.findByPrNumber(12)).hasSize(1);
+    assertThat(sut.findByPrNumber(21).get(0).text).isEqualTo("A revised bugfix text.");
+  }
+
+  @Test
+  void load_partiallyWrittenBatch_ignored() throws Exception {
+    // Arrange
+    Files.write(indexFile, new byte[] {0, 8, 's', 'c'}, StandardOpenOption.APPEND);
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+
+    // Act
+    sut.load();
+
+    // Assert
+    assertThat(sut.findByPrNumber(10)).hasSize(1);
+    assertThat(sut.findByPrNumber(20)).hasSize(1);
+  }
+
+  @Test
+  void add_afterPartiallyWrittenBatch_truncatePartialBatchAndAppend() throws Exception {
+    // Arrange
+    long validLength = Files.size(indexFile);
+    Files.write(
+        indexFile, new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 's', 'c'}, StandardOpenOption.APPEND);
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+
+    // Act
+    sut.add(
+        "scalardb",
+        "4.0.1",
+        new StringReader("## Summary\n\n## Bug fixes\n- A bugfix text. (#30)\n"));
+    sut.load();
+
+    // Assert
+    assertThat(Files.size(indexFile)).isGreaterThan(validLength);
+    assertThat(sut.findByPrNumber(10)).hasSize(1);
+    assertThat(sut.findByPrNumber(20)).hasSize(1);
+    assertThat(sut.findByPrNumber(30).get(0).version).isEqualTo("4.0.1");
+  }
+
+  @Test
+  void add_afterBatchWithWrongChecksum_truncateBatchAndAppend() throws Exception {
+    // Arrange
+    Files.write(
+        indexFile, new byte[] {0, 0, 0, 2, 1, 2, 3, 4, 's', 'c'}, StandardOpenOption.APPEND);
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+
+    // Act
+    sut.add(
+        "scalardb",
+        "4.0.1",
+        new StringReader("## Summary\n\n## Bug fixes\n- A bugfix text. (#30)\n"));
+    sut.load();
+
+    // Assert
+    assertThat(sut.findByPrNumber(20)).hasSize(1);
+    assertThat(sut.findByPrNumber(30).get(0).version).isEqualTo("4.0.1");
+  }
+
+  @Test
+  void add_invalidVersion_throwIllegalArgumentExceptionWithoutWriting() throws Exception {
+    // Arrange
+    byte[] expected = Files.readAllBytes(indexFile);
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+
+    // Act Assert
+    assertThatThrownBy(
+            () ->
+                sut.add(
+                    "scalardb",
+                    "latest",
+                    new StringReader("## Summary\n\n## Bug fixes\n- A bugfix text. (#30)\n")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Invalid version: latest");
+    assertThat(Files.readAllBytes(indexFile)).isEqualTo(expected);
+    sut.load();
+    assertThat(sut.findByPrNumber(20)).hasSize(1);
+    assertThat(sut.findByPrNumber(30)).isEmpty();
+  }
+
+  @Test
+  void add_textLongerThan65535Bytes_loadSameText() throws Exception {
+    // Arrange
+    String text = "A long text" + " and more".repeat(8000) + ".";
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+
+    // Act
+    sut.add(
+        "scalardb",
+        "4.0.1",
+        new StringReader("## Summary\n\n## Enhancements\n- " + text + " (#30)\n"));
+    sut.load();
+
+    // Assert
+    assertThat(text.getBytes(StandardCharsets.UTF_8).length).isGreaterThan(65535);
+    assertThat(sut.findByPrNumber(30).get(0).text).isEqualTo(text);
+  }
+
+  @Test
+  void formatCumulativeReleaseNote_versionRange_outputEntriesByCategory() throws Exception {
+    // Arrange
+    ReleaseNoteIndex sut = new ReleaseNoteIndex(indexFile);
+    sut.load();
+    String expected =
+        "## Backward incompatible changes\n"
+            + "### scalardb 3.9.0\n"
+            + "- A backward-incompatible text in 3.9.0. (#10)\n"
+            + "### scalardb 4.0.0\n"
+            + "- A backward-incompatible text in 4.0.0. (#20)\n\n"
+            + "## Enhancements\n"
+            + "### scalardb 3.9.0\n"
+            + "- A topic pull request. Additional comment. (#11 #12)\n\n"
+            + "## Bug fixes\n"
+            + "### scalardb 4.0.0\n"
+            + "- A bugfix text. (#12)\n\n";
+
+    // Act
+    String actual = sut.formatCumulativeReleaseNote("3.8.0", "4.0.0", null);
+
+    // Assert
+    assertThat(actual).isEqualTo(expected);
+  }
+}
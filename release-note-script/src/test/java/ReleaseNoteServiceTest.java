@@ -0,0 +1,242 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReleaseNoteServiceTest {
+
+  private ReleaseNoteService service;
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    service = new ReleaseNoteService();
+    service.start(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.stop();
+  }
+
+  @Test
+  void cachingGitHubContext_sameDataRequestedTwice_gitHubAccessedOnlyOnce() throws Exception {
+    // Arrange
+    ReleaseNoteService.MetadataCache cache = new ReleaseNoteService.MetadataCache();
+    ReleaseNoteService.CachingGitHubContext first = cachingGhContext(cache, "MERGED");
+    ReleaseNoteService.CachingGitHubContext second = cachingGhContext(cache, "MERGED");
+
+    // Act
+    for (ReleaseNoteService.CachingGitHubContext sut : List.of(first, second)) {
+      assertThat(sut.getTargetPullRequestNumbers()).containsExactly("1");
+      new ReleaseNoteCreation(sut).extractReleaseNoteInfo("1");
+    }
+
+    // Assert
+    verify(first, times(5)).runSubProcessAndGetOutputAsReader(anyString());
+    verify(first).runSubProcessAndGetOutputAsReader(contains("gh project list"));
+    verify(first).runSubProcessAndGetOutputAsReader(contains("gh project item-list PVT_1"));
+    verify(first).runSubProcessAndGetOutputAsReader(contains("--json state"));
+    verify(first).runSubProcessAndGetOutputAsReader(contains("--json labels"));
+    verify(first).runSubProcessAndGetOutputAsReader(contains("--json body"));
+    verify(second, never()).runSubProcessAndGetOutputAsReader(anyString());
+  }
+
+  @Test
+  void cachingGitHubContext_invalidated_gitHubAccessedAgain() throws Exception {
+    // Arrange
+    ReleaseNoteService.MetadataCache cache = new ReleaseNoteService.MetadataCache();
+    ReleaseNoteService.CachingGitHubContext sut = cachingGhContext(cache, "MERGED");
+    sut.getTargetPullRequestNumbers();
+    new ReleaseNoteCreation(sut).extractReleaseNoteInfo("1");
+
+    // Act
+    cache.invalidate("owner", "repo", "1");
+    sut.getTargetPullRequestNumbers();
+    new ReleaseNoteCreation(sut).extractReleaseNoteInfo("1");
+
+    // Assert
+    verify(sut, times(1)).runSubProcessAndGetOutputAsReader(contains("gh project list"));
+    verify(sut, times(2)).runSubProcessAndGetOutputAsReader(contains("gh project item-list"));
+    verify(sut, times(2)).runSubProcessAndGetOutputAsReader(contains("--json state"));
+    verify(sut, times(2)).runSubProcessAndGetOutputAsReader(contains("--json body"));
+  }
+
+  @Test
+  void cachingGitHubContext_notMergedPullRequest_notCached() throws Exception {
+    // Arrange
+    ReleaseNoteService.MetadataCache cache = new ReleaseNoteService.MetadataCache();
+    ReleaseNoteService.CachingGitHubContext sut = cachingGhContext(cache, "OPEN");
+
+    // Act
+    boolean first = sut.isPullRequestMerged("1");
+    boolean second = sut.isPullRequestMerged("1");
+
+    // Assert
+    assertThat(first).isFalse();
+    assertThat(second).isFalse();
+    assertThat(cache.pullRequests).isEmpty();
+    verify(sut, times(2)).runSubProcessAndGetOutputAsReader(contains("--json state"));
+  }
+
+  @Test
+  void cachingGitHubContext_ghCommandForBodyFailed_notCached() throws Exception {
+    // Arrange
+    ReleaseNoteService.MetadataCache cache = new ReleaseNoteService.MetadataCache();
+    ReleaseNoteService.CachingGitHubContext sut = cachingGhContext(cache, "MERGED");
+    doThrow(new RuntimeException("Command failed with exit code 1"))
+        .when(sut)
+        .runSubProcessAndGetOutputAsReader(contains("--json body"));
+
+    // Act Assert
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> new ReleaseNoteCreation(sut).extractReleaseNoteInfo("1"))
+          .isInstanceOf(RuntimeException.class)
+          .hasMessageContaining("exit code 1");
+    }
+    assertThat(cache.pullRequests).isEmpty();
+    verify(sut, times(2)).runSubProcessAndGetOutputAsReader(contains("--json body"));
+  }
+
+  @Test
+  void cachingGitHubContext_cachedBody_returnSameBody() throws Exception {
+    // Arrange
+    ReleaseNoteService.MetadataCache cache = new ReleaseNoteService.MetadataCache();
+    ReleaseNoteService.CachingGitHubContext sut = cachingGhContext(cache, "MERGED");
+    String expected = readAll(sut.getPullRequestBody("1"));
+
+    // Act
+    String actual = readAll(sut.getPullRequestBody("1"));
+
+    // Assert
+    assertThat(actual).isEqualTo(expected).contains("A release note text.");
+  }
+
+  @Test
+  void mergedReleaseNote_dirContainingSpecialCharacters_returnMergedReleaseNote(
+      @TempDir Path tempDir) throws Exception {
+    // Arrange
+    Path dir = Files.createDirectory(tempDir.resolve("release notes & 4.0.0"));
+    for (String fileName : List.of("scalardb.md", "cluster.md", "graphql.md", "sql.md")) {
+      Files.copy(getResource(fileName).toPath(), dir.resolve(fileName));
+    }
+    String expected = Files.readString(getResource("expected.md").toPath(), StandardCharsets.UTF_8);
+
+    // Act
+    HttpResponse<String> response =
+        send("GET", "/merged-release-note?dir=" + URLEncoder.encode(dir.toString(), "UTF-8"));
+
+    // Assert
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body()).isEqualTo(expected);
+  }
+
+  @Test
+  void mergedReleaseNote_invalidRequests_returnErrorStatus(@TempDir Path tempDir) throws Exception {
+    // Arrange
+    String nonExistentDir = URLEncoder.encode(tempDir.resolve("none").toString(), "UTF-8");
+
+    // Act
+    HttpResponse<String> wrongMethod = send("POST", "/merged-release-note?dir=" + nonExistentDir);
+    HttpResponse<String> missingParam = send("GET", "/merged-release-note");
+    HttpResponse<String> failed = send("GET", "/merged-release-note?dir=" + nonExistentDir);
+
+    // Assert
+    assertThat(wrongMethod.statusCode()).isEqualTo(405);
+    assertThat(missingParam.statusCode()).isEqualTo(400);
+    assertThat(missingParam.body()).isEqualTo("Missing parameter: dir");
+    assertThat(failed.statusCode()).isEqualTo(500);
+  }
+
+  @Test
+  void invalidate_pullRequestSpecified_removeOnlyThePullRequest() throws Exception {
+    // Arrange
+    ReleaseNoteService.PullRequestMetadata metadata =
+        new ReleaseNoteService.PullRequestMetadata(ReleaseNoteCreation.Category.BUGFIX, "");
+    service.cache.pullRequests.put("owner/repo/1", metadata);
+    service.cache.pullRequests.put("owner/repo/2", metadata);
+    service.cache.pullRequestNumbers.put("owner/repo/PVT_1", List.of("1", "2"));
+
+    // Act
+    HttpResponse<String> wrongMethod = send("GET", "/invalidate?owner=owner&repository=repo&pr=1");
+    HttpResponse<String> response = send("POST", "/invalidate?owner=owner&repository=repo&pr=1");
+
+    // Assert
+    assertThat(wrongMethod.statusCode()).isEqualTo(405);
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(service.cache.pullRequests).containsOnlyKeys("owner/repo/2");
+    assertThat(service.cache.pullRequestNumbers).isEmpty();
+  }
+
+  ReleaseNoteService.CachingGitHubContext cachingGhContext(
+      ReleaseNoteService.MetadataCache cache, String state) throws Exception {
+    ReleaseNoteService.CachingGitHubContext ghContext =
+        spy(
+            new ReleaseNoteService.CachingGitHubContext(
+                cache, "owner", "ScalarDB", "4.0.0", "repo"));
+    doAnswer(
+            invocation -> {
+              String command = invocation.getArgument(0);
+              String output;
+              if (command.startsWith("gh project list")) {
+                output = "PVT_1";
+              } else if (command.startsWith("gh project item-list PVT_1")) {
+                output = "1";
+              } else if (command.contains("--json state")) {
+                output = state;
+              } else if (command.contains("--json labels")) {
+                output = "enhancement";
+              } else if (command.contains("--json body")) {
+                output = "## Release notes\nA release note text.\n";
+              } else {
+                throw new AssertionError("Unexpected command: " + command);
+              }
+              return new BufferedReader(new StringReader(output));
+            })
+        .when(ghContext)
+        .runSubProcessAndGetOutputAsReader(anyString());
+    return ghContext;
+  }
+
+  HttpResponse<String> send(String method, String pathAndQuery) throws Exception {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + service.getPort() + pathAndQuery))
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+  }
+
+  File getResource(String fileName) {
+    return new File(
+        Objects.requireNonNull(this.getClass().getClassLoader().getResource(fileName)).getFile());
+  }
+
+  String readAll(BufferedReader br) {
+    return br.lines().collect(Collectors.joining("\n"));
+  }
+}